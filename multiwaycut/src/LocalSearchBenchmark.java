@@ -0,0 +1,114 @@
+import algorithms.LocalSearch;
+import datastructures.flownetwork.FlowNetwork;
+import library.StdOut;
+import utility.ConnectedComponentSearcher;
+import utility.GraphFormatReader;
+import utility.Pair;
+
+import java.util.LinkedList;
+
+/**
+ * LocalSearchBenchmark.java
+ *
+ * Course: CS4490Z
+ *
+ * Compares the neighbourhoods of local search by the time they take to reach a
+ * target cost. Each input graph is solved from the clumps labelling with expansion
+ * moves, swap moves and the hybrid of the two. The target is the highest final cost
+ * of the three, so every neighbourhood reaches it, and the time to the target is
+ * read off the cost of each run after every round.
+ *
+ * Usage: java LocalSearchBenchmark [epsilon] file1 file2 ...
+ */
+public class LocalSearchBenchmark {
+
+    private static final String OUT_NAME = "-999.txt";
+    private static final String[] NEIGHBOURHOODS = {"EXPANSION", "SWAP", "HYBRID"};
+
+    public static void main(String[] args) {
+
+        GraphFormatReader reader = new GraphFormatReader();
+        ConnectedComponentSearcher searcher = new ConnectedComponentSearcher();
+        LinkedList<String> rows = new LinkedList<>();
+
+        double epsilon = 0.0;
+        int first = 0;
+
+        if (args.length > 0 && args[0].matches("\\d*\\.?\\d+")) {
+
+            epsilon = Double.parseDouble(args[0]);
+            first = 1;
+
+        } //end if
+
+        for (int f = first; f < args.length; f++) {
+
+            FlowNetwork flowNetwork = searcher.getLargestConnectedComponent(reader.parse(args[f], OUT_NAME));
+
+            double[] cost = new double[NEIGHBOURHOODS.length];
+            double[] time = new double[NEIGHBOURHOODS.length];
+            LinkedList<LinkedList<Pair>> traces = new LinkedList<>();
+
+            double target = 0.0;
+
+            for (int n = 0; n < NEIGHBOURHOODS.length; n++) {
+
+                LocalSearch localSearch = new LocalSearch();
+                localSearch.setInitialLabeller("CLUMPS");
+                localSearch.setEpsilon(epsilon);
+                localSearch.setNeighbourhood(NEIGHBOURHOODS[n]);
+
+                cost[n] = localSearch.computeMultiwayCut(new FlowNetwork(flowNetwork));
+                time[n] = localSearch.getTime() / 1e6;
+                traces.add(localSearch.getCostTrace());
+                target = Math.max(target, cost[n]);
+
+            } //end for
+
+            String name = args[f].substring(args[f].lastIndexOf(System.getProperty("file.separator")) + 1);
+            StringBuilder row = new StringBuilder(String.format("%-30s %4d %12.3f", name, flowNetwork.getK(), target));
+
+            for (int n = 0; n < NEIGHBOURHOODS.length; n++) {
+
+                row.append(String.format(" %12.3f %10.3fms %10.3fms", cost[n], time[n], timeToTarget(traces.get(n), target)));
+
+            } //end for
+
+            rows.add(row.toString());
+
+        } //end for
+
+        StdOut.println(String.format("%-30s %4s %12s %12s %12s %12s %12s %12s %12s %12s %12s %12s", "graph", "k", "target",
+                "expansion", "total", "to target", "swap", "total", "to target", "hybrid", "total", "to target"));
+
+        for (String row : rows) {
+
+            StdOut.println(row);
+
+        } //end for
+
+    } //end main
+
+    /**
+     * Finds the first round of a run whose cost is at most the target.
+     * @param trace the time and cost after every round
+     * @param target the target cost
+     * @return the milliseconds the run took to reach the target
+     */
+    private static double timeToTarget(LinkedList<Pair> trace, double target) {
+
+        for (Pair round : trace) {
+
+            if (round.value <= target) {
+
+                return round.index;
+
+            } //end if
+
+        } //end for
+
+        return Double.NaN;
+
+    } //end timeToTarget
+
+} //end LocalSearchBenchmark
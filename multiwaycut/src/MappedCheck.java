@@ -0,0 +1,366 @@
+import algorithms.CalinescuUtility;
+import algorithms.IsolatingCuts;
+import algorithms.IsolationHeuristic;
+import datastructures.flownetwork.CompactGraph;
+import datastructures.flownetwork.FlowGraph;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
+import datastructures.flownetwork.MappedGraph;
+import datastructures.flownetwork.MinCut;
+import datastructures.flownetwork.PushRelabel;
+import library.StdOut;
+import library.StdRandom;
+import utility.GraphFormatReader;
+import utility.Pair;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * MappedCheck.java
+ *
+ * Course: CS4490Z
+ *
+ * Checks that a graph streamed from its input file into a mapped graph is the graph
+ * the heap reader builds, and that the isolation heuristic and the roundings give
+ * the same answers on both. Each input graph is streamed into a temporary file,
+ * which is reopened read only, and parsed onto the heap. The two must agree on the
+ * terminals, the vertices and the capacity at every vertex. The isolating cut of
+ * every terminal must weigh the same on both, and the multiway cut found on the
+ * mapped graph must separate the terminals and weigh no more than the cuts it is
+ * the union of. Both roundings are run on random labels with the same random seed,
+ * and must give every vertex the same part and the cut the same weight.
+ *
+ * Only the formats that store their capacities can be streamed.
+ *
+ * Usage: java MappedCheck [seed] file1 file2 ...
+ */
+public class MappedCheck {
+
+    private static final String OUT_NAME = "-999.txt";
+    private static final double TOLERANCE = 1e-6;
+
+    private static int failed;
+
+    public static void main(String[] args) throws IOException {
+
+        GraphFormatReader reader = new GraphFormatReader();
+
+        long seed = 1;
+        int first = 0;
+        int checked = 0;
+
+        if (args.length > 0 && args[0].matches("\\d+")) {
+
+            seed = Long.parseLong(args[0]);
+            first = 1;
+
+        } //end if
+
+        for (int f = first; f < args.length; f++) {
+
+            Path file = Files.createTempFile("mapped", ".graph");
+
+            try {
+
+                StdRandom.setSeed(seed);
+                reader.parseMapped(args[f], file);
+                MappedGraph mapped = MappedGraph.open(file, false);
+
+                StdRandom.setSeed(seed);
+                FlowNetwork flowNetwork = reader.parse(args[f], OUT_NAME);
+
+                checkGraph(args[f], mapped, flowNetwork);
+                checkIsolation(args[f], mapped, flowNetwork);
+                checkRounding(args[f], mapped, flowNetwork, seed);
+                checked++;
+
+            } //end try
+
+            finally {
+
+                Files.deleteIfExists(file);
+
+            } //end finally
+
+        } //end for
+
+        StdOut.println("Mapped graphs checked: " + checked + ", differences: " + failed);
+
+        if (failed > 0) {
+
+            System.exit(1);
+
+        } //end if
+
+    } //end main
+
+    /**
+     * Compares the terminals, the vertices and the capacity at every vertex.
+     * @param name the name of the input file
+     * @param mapped the streamed graph
+     * @param flowNetwork the graph built on the heap
+     */
+    private static void checkGraph(String name, MappedGraph mapped, FlowNetwork flowNetwork) {
+
+        CompactGraph compact = flowNetwork.freeze();
+
+        if (!mapped.getTerminals().equals(flowNetwork.getTerminals())
+                || mapped.getNumVertices() != compact.getNumVertices()
+                || mapped.getNumEdges() != compact.getNumEdges()) {
+
+            fail(name, "the terminals or the sizes differ");
+            return;
+
+        } //end if
+
+        for (int v = 0; v < mapped.getNumVertices(); v++) {
+
+            int w = compact.index(mapped.id(v));
+
+            if (w < 0 || Math.abs(incident(mapped, v) - incident(compact, w)) > TOLERANCE) {
+
+                fail(name, "the edges at vertex " + mapped.id(v) + " differ");
+                return;
+
+            } //end if
+
+        } //end for
+
+    } //end checkGraph
+
+    /**
+     * Compares the isolating cuts and checks the multiway cut of the mapped graph.
+     * @param name the name of the input file
+     * @param mapped the streamed graph
+     * @param flowNetwork the graph built on the heap
+     */
+    private static void checkIsolation(String name, MappedGraph mapped, FlowNetwork flowNetwork) {
+
+        LinkedList<Integer> terminals = mapped.getTerminals();
+        LinkedList<MinCut> mappedCuts = new IsolatingCuts(new PushRelabel()).computeIsolatingCuts(mapped, terminals);
+        LinkedList<MinCut> heapCuts = new IsolatingCuts(new PushRelabel()).computeIsolatingCuts(flowNetwork);
+
+        double total = 0.0;
+        double heaviest = 0.0;
+
+        for (int i = 0; i < terminals.size(); i++) {
+
+            double value = mappedCuts.get(i).getValue();
+
+            if (Math.abs(value - heapCuts.get(i).getValue()) > TOLERANCE * Math.max(1.0, value)) {
+
+                fail(name, "the isolating cut of terminal " + terminals.get(i) + " differs");
+
+            } //end if
+
+            total += value;
+            heaviest = Math.max(heaviest, value);
+
+        } //end for
+
+        BitSet multiwayCut = new IsolationHeuristic().computeMultiwayCutEdges(mapped, terminals);
+
+        if (!separates(mapped, terminals, multiwayCut)) {
+
+            fail(name, "the multiway cut does not separate the terminals");
+
+        } //end if
+
+        if (MinCut.edgeWeight(mapped, multiwayCut) > (total - heaviest) * (1 + TOLERANCE) + TOLERANCE) {
+
+            fail(name, "the multiway cut is heavier than its isolating cuts");
+
+        } //end if
+
+    } //end checkIsolation
+
+    /**
+     * Rounds the same random labels on both graphs with both roundings.
+     * @param name the name of the input file
+     * @param mapped the streamed graph
+     * @param flowNetwork the graph built on the heap
+     * @param seed the random seed
+     */
+    private static void checkRounding(String name, MappedGraph mapped, FlowNetwork flowNetwork, long seed) {
+
+        LinkedList<Integer> terminals = mapped.getTerminals();
+        LabelMatrix vertexLabels = randomLabels(mapped, terminals, new Random(seed));
+
+        StdRandom.setSeed(seed);
+        LinkedList<Pair> terminalOrder = CalinescuUtility.descendingThreshold(
+                CalinescuUtility.uniformPermutation(flowNetwork), 0.8);
+
+        int[] partition = CalinescuUtility.roundCalinescu(mapped, terminals, vertexLabels, terminalOrder);
+        double cost = CalinescuUtility.roundCalinescu(flowNetwork, vertexLabels, terminalOrder).index;
+
+        compareRounding(name, "Calinescu", mapped, flowNetwork, partition, cost);
+
+        StdRandom.setSeed(seed);
+        partition = CalinescuUtility.roundBuchbinder(mapped, vertexLabels, terminals.size());
+        StdRandom.setSeed(seed);
+        cost = CalinescuUtility.roundBuchbinder(flowNetwork, vertexLabels);
+
+        compareRounding(name, "Buchbinder", mapped, flowNetwork, partition, cost);
+
+    } //end checkRounding
+
+    /**
+     * Compares a rounding of the mapped graph with the rounding of the heap graph.
+     * @param name the name of the input file
+     * @param rounding the name of the rounding
+     * @param mapped the streamed graph
+     * @param flowNetwork the graph built on the heap, rounded
+     * @param partition the part of each vertex of the mapped graph
+     * @param cost the cost of the heap rounding
+     */
+    private static void compareRounding(String name, String rounding, MappedGraph mapped,
+                                        FlowNetwork flowNetwork, int[] partition, double cost) {
+
+        for (int v = 0; v < mapped.getNumVertices(); v++) {
+
+            if (partition[v] != flowNetwork.getVertices().get(mapped.id(v)).getCalinescu()) {
+
+                fail(name, rounding + " puts vertex " + mapped.id(v) + " in another part");
+                return;
+
+            } //end if
+
+        } //end for
+
+        double mappedCost = MinCut.edgeWeight(mapped, CalinescuUtility.cutEdges(mapped, partition));
+
+        if (Math.abs(mappedCost - cost) > TOLERANCE * Math.max(1.0, cost)) {
+
+            fail(name, rounding + " costs differ: " + mappedCost + ", " + cost);
+
+        } //end if
+
+    } //end compareRounding
+
+    /**
+     * Draws a label for every vertex: a point of the simplex, or a corner for a terminal.
+     * @param graph the graph
+     * @param terminals the ids of the terminals
+     * @param random the random source
+     * @return the labels
+     */
+    private static LabelMatrix randomLabels(FlowGraph graph, LinkedList<Integer> terminals, Random random) {
+
+        int k = terminals.size();
+        LabelMatrix vertexLabels = new LabelMatrix(k, graph.getNumVertices());
+
+        for (int v = 0; v < graph.getNumVertices(); v++) {
+
+            double[] labels = new double[k];
+            int terminal = terminals.indexOf(graph.id(v));
+            double sum = 0.0;
+
+            for (int i = 0; i < k; i++) {
+
+                labels[i] = terminal < 0 ? random.nextDouble() : (i == terminal ? 1.0 : 0.0);
+                sum += labels[i];
+
+            } //end for
+
+            for (int i = 0; i < k; i++) {
+
+                labels[i] /= sum;
+
+            } //end for
+
+            vertexLabels.addRow(graph.id(v), labels);
+
+        } //end for
+
+        return vertexLabels;
+
+    } //end randomLabels
+
+    /**
+     * Checks that no terminal reaches another without crossing the cut.
+     * @param graph the graph
+     * @param terminals the ids of the terminals
+     * @param cut the edge indices of the cut
+     * @return true if the cut separates every pair of terminals
+     */
+    private static boolean separates(FlowGraph graph, LinkedList<Integer> terminals, BitSet cut) {
+
+        int[] owner = new int[graph.getNumVertices()];
+        LinkedList<Integer> queue = new LinkedList<>();
+
+        for (int i = 0; i < terminals.size(); i++) {
+
+            owner[graph.index(terminals.get(i))] = i + 1;
+            queue.add(graph.index(terminals.get(i)));
+
+        } //end for
+
+        while (!queue.isEmpty()) {
+
+            int v = queue.removeFirst();
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int w = graph.arcHead(a);
+
+                if (cut.get(graph.arcEdge(a)) || owner[w] == owner[v]) {
+
+                    continue;
+
+                } //end if
+
+                if (owner[w] != 0) {
+
+                    return false;
+
+                } //end if
+
+                owner[w] = owner[v];
+                queue.add(w);
+
+            } //end for
+
+        } //end while
+
+        return true;
+
+    } //end separates
+
+    /**
+     * Sums the capacities of the edges at a vertex.
+     * @param graph the graph
+     * @param v the vertex
+     * @return the capacity at the vertex
+     */
+    private static double incident(FlowGraph graph, int v) {
+
+        double capacity = 0.0;
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            capacity += graph.capacity(graph.arcEdge(a));
+
+        } //end for
+
+        return capacity;
+
+    } //end incident
+
+    /**
+     * Reports a difference.
+     * @param name the name of the input file
+     * @param message what differs
+     */
+    private static void fail(String name, String message) {
+
+        failed++;
+        StdOut.println("Mapped graph of " + name + ": " + message);
+
+    } //end fail
+
+} //end MappedCheck
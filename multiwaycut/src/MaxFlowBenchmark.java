@@ -0,0 +1,165 @@
+import algorithms.LocalSearch;
+import algorithms.LocalSearchLabeller;
+import datastructures.flownetwork.BoykovKolmogorov;
+import datastructures.flownetwork.Dinic;
+import datastructures.flownetwork.FlowEdge;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.MaxFlowEngine;
+import datastructures.flownetwork.PushRelabel;
+import library.StdOut;
+import utility.ConnectedComponentSearcher;
+import utility.GraphFormatReader;
+
+import java.util.LinkedList;
+
+/**
+ * MaxFlowBenchmark.java
+ *
+ * Course: CS4490Z
+ *
+ * Times the maximum flow algorithms on the expansion networks that local search
+ * builds. Each input graph is labelled with the clumps labelling, the expansion
+ * network of every label is built once, and every algorithm then computes the
+ * minimum cut of all k networks. The cut weights are checked against each other.
+ *
+ * Usage: java MaxFlowBenchmark [repetitions] file1 file2 ...
+ */
+public class MaxFlowBenchmark {
+
+    private static final String OUT_NAME = "-999.txt";
+    private static final int WARM_UP = 2;
+
+    public static void main(String[] args) {
+
+        GraphFormatReader reader = new GraphFormatReader();
+        ConnectedComponentSearcher searcher = new ConnectedComponentSearcher();
+        LocalSearch localSearch = new LocalSearch();
+
+        MaxFlowEngine pushRelabelEngine = new PushRelabel();
+        MaxFlowEngine boykovKolmogorovEngine = new BoykovKolmogorov();
+        MaxFlowEngine dinicEngine = new Dinic();
+
+        int repetitions = 5;
+        int first = 0;
+
+        if (args.length > 0 && args[0].matches("\\d+")) {
+
+            repetitions = Integer.parseInt(args[0]);
+            first = 1;
+
+        } //end if
+
+        StdOut.println(String.format("%-30s %4s %8s %8s %14s %14s %14s %14s", "graph", "k", "vertices", "edges",
+                "goldbergTarjan", "push-relabel", "boykov-kolm.", "dinic"));
+
+        for (int f = first; f < args.length; f++) {
+
+            FlowNetwork flowNetwork = searcher.getLargestConnectedComponent(reader.parse(args[f], OUT_NAME));
+            new LocalSearchLabeller(flowNetwork, "CLUMPS", null).initialLocalSearchLabel();
+
+            LinkedList<FlowNetwork> expansions = new LinkedList<>();
+            int vertices = 0;
+            int edges = 0;
+
+            for (int i = 0; i < flowNetwork.getK(); i++) {
+
+                FlowNetwork expansion = localSearch.expansionNetwork(flowNetwork, flowNetwork.getTerminals(), i);
+                expansion.freeze();
+                expansions.add(expansion);
+
+                vertices += expansion.getNumVertices();
+                edges += expansion.getNumEdges();
+
+            } //end for
+
+            double[] goldbergTarjan = new double[expansions.size()];
+            double[] pushRelabel = new double[expansions.size()];
+            double[] boykovKolmogorov = new double[expansions.size()];
+            double[] dinic = new double[expansions.size()];
+
+            long goldbergTarjanTime = 0;
+            long pushRelabelTime = 0;
+            long boykovKolmogorovTime = 0;
+            long dinicTime = 0;
+
+            for (int r = 0; r < WARM_UP + repetitions; r++) {
+
+                long start = System.nanoTime();
+
+                for (int i = 0; i < expansions.size(); i++) {
+
+                    FlowNetwork expansion = expansions.get(i);
+                    goldbergTarjan[i] = 0.0;
+
+                    for (FlowEdge edge : expansion.goldbergTarjan(expansion.getSource(), expansion.getSink())) {
+
+                        goldbergTarjan[i] += edge.getCapacity();
+
+                    } //end for
+
+                } //end for
+
+                long middle = System.nanoTime();
+
+                for (int i = 0; i < expansions.size(); i++) {
+
+                    FlowNetwork expansion = expansions.get(i);
+                    pushRelabel[i] = expansion.minimumCut(expansion.getSource(), expansion.getSink(), pushRelabelEngine).getValue();
+
+                } //end for
+
+                long last = System.nanoTime();
+
+                for (int i = 0; i < expansions.size(); i++) {
+
+                    FlowNetwork expansion = expansions.get(i);
+                    boykovKolmogorov[i] = expansion.minimumCut(expansion.getSource(), expansion.getSink(), boykovKolmogorovEngine).getValue();
+
+                } //end for
+
+                long fourth = System.nanoTime();
+
+                for (int i = 0; i < expansions.size(); i++) {
+
+                    FlowNetwork expansion = expansions.get(i);
+                    dinic[i] = expansion.minimumCut(expansion.getSource(), expansion.getSink(), dinicEngine).getValue();
+
+                } //end for
+
+                long end = System.nanoTime();
+
+                // Only time the repetitions after the warm up
+                if (r >= WARM_UP) {
+
+                    goldbergTarjanTime += middle - start;
+                    pushRelabelTime += last - middle;
+                    boykovKolmogorovTime += fourth - last;
+                    dinicTime += end - fourth;
+
+                } //end if
+
+            } //end for
+
+            for (int i = 0; i < expansions.size(); i++) {
+
+                if (Math.abs(goldbergTarjan[i] - pushRelabel[i]) > 1e-6 || Math.abs(goldbergTarjan[i] - boykovKolmogorov[i]) > 1e-6
+                        || Math.abs(goldbergTarjan[i] - dinic[i]) > 1e-6) {
+
+                    StdOut.println("Cut weights differ on label " + i + ": " + goldbergTarjan[i] + ", " + pushRelabel[i] + ", " + boykovKolmogorov[i] + ", " + dinic[i]);
+
+                } //end if
+
+            } //end for
+
+            String name = args[f].substring(args[f].lastIndexOf(System.getProperty("file.separator")) + 1);
+
+            StdOut.println(String.format("%-30s %4d %8d %8d %12.3fms %12.3fms %12.3fms %12.3fms", name, flowNetwork.getK(),
+                    vertices / expansions.size(), edges / expansions.size(),
+                    goldbergTarjanTime / 1e6 / repetitions, pushRelabelTime / 1e6 / repetitions,
+                    boykovKolmogorovTime / 1e6 / repetitions, dinicTime / 1e6 / repetitions));
+
+        } //end for
+
+    } //end main
+
+} //end MaxFlowBenchmark
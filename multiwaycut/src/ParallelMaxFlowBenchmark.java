@@ -0,0 +1,149 @@
+import algorithms.LocalSearch;
+import algorithms.LocalSearchLabeller;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.MaxFlowEngine;
+import datastructures.flownetwork.ParallelPushRelabel;
+import datastructures.flownetwork.PushRelabel;
+import library.StdOut;
+import utility.ConnectedComponentSearcher;
+import utility.GraphFormatReader;
+
+import java.util.LinkedList;
+
+/**
+ * ParallelMaxFlowBenchmark.java
+ *
+ * Course: CS4490Z
+ *
+ * Measures how the parallel push-relabel engine scales with the number of threads.
+ * Each input graph is labelled with the clumps labelling and the expansion network
+ * of every label is built once, as in MaxFlowBenchmark. The sequential engine and
+ * then the parallel engine with 1, 2, 4, ... up to the given number of threads
+ * compute the minimum cut of all k networks. Cut weights that differ from the
+ * sequential engine are reported.
+ *
+ * Usage: java ParallelMaxFlowBenchmark [threads] file1 file2 ...
+ * For example: java ParallelMaxFlowBenchmark 32 data/challenge11/i320/*.txt
+ */
+public class ParallelMaxFlowBenchmark {
+
+    private static final String OUT_NAME = "-999.txt";
+    private static final int WARM_UP = 2;
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) {
+
+        GraphFormatReader reader = new GraphFormatReader();
+        ConnectedComponentSearcher searcher = new ConnectedComponentSearcher();
+        LocalSearch localSearch = new LocalSearch();
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+
+        if (args.length > 0 && args[0].matches("\\d+")) {
+
+            maxThreads = Integer.parseInt(args[0]);
+            first = 1;
+
+        } //end if
+
+        LinkedList<Integer> threadCounts = new LinkedList<>();
+
+        for (int t = 1; t < maxThreads; t *= 2) {
+
+            threadCounts.add(t);
+
+        } //end for
+
+        threadCounts.add(maxThreads);
+
+        for (int f = first; f < args.length; f++) {
+
+            FlowNetwork flowNetwork = searcher.getLargestConnectedComponent(reader.parse(args[f], OUT_NAME));
+            new LocalSearchLabeller(flowNetwork, "CLUMPS", null).initialLocalSearchLabel();
+
+            LinkedList<FlowNetwork> expansions = new LinkedList<>();
+
+            for (int i = 0; i < flowNetwork.getK(); i++) {
+
+                FlowNetwork expansion = localSearch.expansionNetwork(flowNetwork, flowNetwork.getTerminals(), i);
+                expansion.freeze();
+                expansions.add(expansion);
+
+            } //end for
+
+            String name = args[f].substring(args[f].lastIndexOf(System.getProperty("file.separator")) + 1);
+            double[] expected = new double[expansions.size()];
+
+            PushRelabel sequential = new PushRelabel();
+            double sequentialTime = time(expansions, sequential, expected, null);
+
+            StdOut.println(String.format("%-30s %10s %12.3fms", name, "sequential", sequentialTime));
+
+            for (int threads : threadCounts) {
+
+                ParallelPushRelabel parallel = new ParallelPushRelabel(threads);
+                double parallelTime = time(expansions, parallel, new double[expansions.size()], expected);
+                parallel.shutdown();
+
+                StdOut.println(String.format("%-30s %10s %12.3fms %8.2fx", name, threads + " threads", parallelTime,
+                        sequentialTime / parallelTime));
+
+            } //end for
+
+        } //end for
+
+    } //end main
+
+    /**
+     * Times the minimum cuts of every expansion network with one engine.
+     * @param expansions the expansion networks
+     * @param engine the maximum flow engine
+     * @param values the cut weights found
+     * @param expected the cut weights to compare against, or null
+     * @return the mean time of one repetition in milliseconds
+     */
+    private static double time(LinkedList<FlowNetwork> expansions, MaxFlowEngine engine,
+                               double[] values, double[] expected) {
+
+        long total = 0;
+
+        for (int r = 0; r < WARM_UP + REPETITIONS; r++) {
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < expansions.size(); i++) {
+
+                FlowNetwork expansion = expansions.get(i);
+                values[i] = expansion.minimumCut(expansion.getSource(), expansion.getSink(), engine).getValue();
+
+            } //end for
+
+            // Only time the repetitions after the warm up
+            if (r >= WARM_UP) {
+
+                total += System.nanoTime() - start;
+
+            } //end if
+
+        } //end for
+
+        if (expected != null) {
+
+            for (int i = 0; i < expansions.size(); i++) {
+
+                if (Math.abs(values[i] - expected[i]) > 1e-6) {
+
+                    StdOut.println("Cut weights differ on label " + i + ": " + expected[i] + ", " + values[i]);
+
+                } //end if
+
+            } //end for
+
+        } //end if
+
+        return total / 1e6 / REPETITIONS;
+
+    } //end time
+
+} //end ParallelMaxFlowBenchmark
@@ -0,0 +1,117 @@
+import algorithms.LocalSearch;
+import algorithms.LocalSearchLabeller;
+import datastructures.flownetwork.FlowEdge;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.MinCut;
+import datastructures.flownetwork.PushRelabel;
+import library.StdOut;
+import utility.ConnectedComponentSearcher;
+import utility.GraphFormatReader;
+
+import java.util.Random;
+
+/**
+ * ResumeCheck.java
+ *
+ * Course: CS4490Z
+ *
+ * Checks that push-relabel resumed on changed capacities finds the same cuts as a
+ * run from scratch. The capacities of each input graph are scaled by random
+ * fractions, so the flows repaired between runs carry rounding error. The graph is
+ * labelled with the clumps labelling, and the expansion network is then cut for
+ * every label in turn, more than once. The resumed engine runs the first phase,
+ * then both phases with FIFO selection, then both phases with highest label
+ * selection. Every cut is compared with a cut of a freshly built network.
+ *
+ * Usage: java ResumeCheck [seed] file1 file2 ...
+ */
+public class ResumeCheck {
+
+    private static final String OUT_NAME = "-999.txt";
+    private static final int PASSES = 3;
+
+    public static void main(String[] args) {
+
+        GraphFormatReader reader = new GraphFormatReader();
+        ConnectedComponentSearcher searcher = new ConnectedComponentSearcher();
+        LocalSearch localSearch = new LocalSearch();
+
+        long seed = 1;
+        int first = 0;
+        int checked = 0;
+        int failed = 0;
+
+        if (args.length > 0 && args[0].matches("\\d+")) {
+
+            seed = Long.parseLong(args[0]);
+            first = 1;
+
+        } //end if
+
+        Random random = new Random(seed);
+
+        for (int f = first; f < args.length; f++) {
+
+            FlowNetwork flowNetwork = searcher.getLargestConnectedComponent(reader.parse(args[f], OUT_NAME));
+
+            for (FlowEdge edge : flowNetwork.getEdges()) {
+
+                edge.setCapacity(edge.getCapacity() * (0.1 + random.nextDouble()) / 3.0);
+
+            } //end for
+
+            new LocalSearchLabeller(flowNetwork, "CLUMPS", null).initialLocalSearchLabel();
+
+            int k = flowNetwork.getK();
+
+            for (int mode = 0; mode < 3; mode++) {
+
+                PushRelabel engine = new PushRelabel();
+                engine.setPhaseOne(mode == 0);
+
+                if (mode == 2) {
+
+                    engine.setSelection("HIGHEST LABEL");
+
+                } //end if
+
+                FlowNetwork shared = localSearch.expansionNetwork(flowNetwork, flowNetwork.getTerminals(), 0);
+
+                for (int r = 0; r < PASSES * k; r++) {
+
+                    // Go round the labels in order, then jump between them
+                    int i = r < k ? r : (r * 7) % k;
+
+                    localSearch.expansionCapacities(shared, flowNetwork.getTerminals(), i);
+                    MinCut resumed = shared.resumeMinimumCut(shared.getSource(), shared.getSink(), engine);
+
+                    FlowNetwork fresh = localSearch.expansionNetwork(flowNetwork, flowNetwork.getTerminals(), i);
+                    MinCut cold = fresh.minimumCut(fresh.getSource(), fresh.getSink(), engine.copy());
+
+                    checked++;
+
+                    if (Math.abs(resumed.getValue() - cold.getValue()) > 1e-6 * Math.max(1.0, cold.getValue())) {
+
+                        failed++;
+                        StdOut.println("Cut weights differ on " + args[f] + ", mode " + mode + ", label " + i + ": "
+                                + resumed.getValue() + ", " + cold.getValue());
+
+                    } //end if
+
+                } //end for
+
+            } //end for
+
+        } //end for
+
+        StdOut.println("Resumed cuts checked: " + checked + ", differing: " + failed);
+
+        if (failed > 0) {
+
+            System.exit(1);
+
+        } //end if
+
+    } //end main
+
+} //end ResumeCheck
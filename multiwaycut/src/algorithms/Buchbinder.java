@@ -3,13 +3,13 @@ package algorithms;
 import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
+import datastructures.flownetwork.LabelMatrix;
 import library.Matrix;
 import library.StdOut;
 import library.StdRandom;
 import utility.ObjectCopy;
 import utility.Pair;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by Bloch-Hansen on 2017-04-25.
@@ -114,32 +114,25 @@ public class Buchbinder implements MultiwayCutStrategy {
 
     } //end createA
 
-    private Map<Integer, Pair[]> sort(Map<Integer, double[]> vertexLabels) {
+    private Map<Integer, Pair[]> sort(LabelMatrix vertexLabels) {
 
         Map<Integer, Pair[]> sorted = new LinkedHashMap<>();
+        double[] labels = vertexLabels.getValues();
 
         // For every vertex, the coordinates must be sorted in non-increasing order
-        for (Map.Entry<Integer, double[]> entry : vertexLabels.entrySet()) {
+        for (int r = 0; r < vertexLabels.getNumRows(); r++) {
 
-            Pair[] vector = new Pair[entry.getValue().length];
+            Pair[] vector = new Pair[vertexLabels.getK()];
 
             // Store the original coordinate positions
-            for (int i = 0; i < entry.getValue().length; i++) {
+            for (int i = 0; i < vertexLabels.getK(); i++) {
 
-                vector[i] = new Pair(i, entry.getValue()[i]);
+                vector[i] = new Pair(i, labels[vertexLabels.offset(r) + i]);
 
             } //end for
 
             Arrays.sort(vector);
-            sorted.put(entry.getKey(), vector);
-
-            /*StdOut.println("Sorted vertex " + entry.getKey());
-
-            for (int i = 0; i < vector.length; i++) {
-
-                StdOut.println(vector[i].index + ": " + vector[i].value);
-
-            } //end for*/
+            sorted.put(vertexLabels.id(r), vector);
 
         } //end for
 
@@ -205,12 +198,12 @@ public class Buchbinder implements MultiwayCutStrategy {
 
     } //end sort
 
-    private Map<Integer, double[]> transform(FlowNetwork flowNetwork, Map<Integer, double[]> vertexLabels) {
+    private LabelMatrix transform(FlowNetwork flowNetwork, LabelMatrix vertexLabels) {
 
-        Map<Integer, double[]> transform = new LinkedHashMap<>();
         Map<Integer, Pair[]> sorted = sort(vertexLabels);
         split(flowNetwork, sorted);
         double[][] A = createA(flowNetwork);
+        LabelMatrix transform = new LabelMatrix(vertexLabels.getK(), sorted.size());
 
         /*LinkedList<FlowEdge> edges = flowNetwork.getEdges();
         for (int i = 0; i < edges.size(); i++) {
@@ -273,7 +266,7 @@ public class Buchbinder implements MultiwayCutStrategy {
             } //end for
             StdOut.println("The cost of the transformed vector is: " + test);*/
 
-            transform.put(entry.getKey(), transformedVector);
+            transform.addRow(entry.getKey(), transformedVector);
 
         } //end for
 
@@ -282,11 +275,10 @@ public class Buchbinder implements MultiwayCutStrategy {
     } //end sort
 
     private double round(FlowNetwork flowNetwork,
-                      Map<Integer, double[]> vertexLabels) {
+                      LabelMatrix vertexLabels) {
 
         FlowNetwork flowNetwork2 = new FlowNetwork(flowNetwork);
-        //Map<Integer, double[]> vertexLabels2 = ObjectCopy.copyMapIntDoubleArray(vertexLabels);
-        Map<Integer, double[]> vertexLabels2 = vertexLabels.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue()));
+        LabelMatrix vertexLabels2 = new LabelMatrix(vertexLabels);
 
         int alg = StdRandom.uniform(1, 230);
         long start = System.nanoTime();
@@ -326,7 +318,7 @@ public class Buchbinder implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Buchbinder");
         double cost = round(flowNetwork, vertexLabels);
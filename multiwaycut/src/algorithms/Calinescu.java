@@ -1,13 +1,11 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
 import library.StdRandom;
 import utility.Pair;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-
 /**
  * Created by Bloch-Hansen on 2017-04-24.
  */
@@ -44,7 +42,7 @@ public class Calinescu implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Calinescu");
         long start = System.nanoTime();
@@ -1,8 +1,12 @@
 package algorithms;
 
+import datastructures.flownetwork.CompactGraph;
 import datastructures.flownetwork.FlowEdge;
+import datastructures.flownetwork.FlowGraph;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
+import datastructures.flownetwork.LabelMatrix;
+import datastructures.flownetwork.MinCut;
 import library.StdOut;
 import library.StdRandom;
 import utility.Pair;
@@ -127,7 +131,7 @@ public class CalinescuUtility {
     } //end descendingThreshold
 
     public static void subdivision(FlowNetwork flowNetwork,
-                             Map<Integer, double[]> vertexLabels) {
+                             LabelMatrix vertexLabels) {
 
         LinkedList<FlowEdge> queue = flowNetwork.getEdges();
 
@@ -170,7 +174,7 @@ public class CalinescuUtility {
     } //end subdivision
 
     public static void outputCoordinates(FlowNetwork flowNetwork,
-                                   Map<Integer, double[]> vertexLabels,
+                                   LabelMatrix vertexLabels,
                                    double[] edgeLabelSums) {
 
         for (int i = 0; i < edgeLabelSums.length; i++) {
@@ -185,7 +189,7 @@ public class CalinescuUtility {
 
             for (int j = 0; j < flowNetwork.getK(); j++) {
 
-                StdOut.print(String.format("%.2f", vertexLabels.get(entry.getKey())[j]) + ", ");
+                StdOut.print(String.format("%.2f", vertexLabels.get(vertexLabels.row(entry.getKey()), j)) + ", ");
 
             } //end for
 
@@ -196,95 +200,156 @@ public class CalinescuUtility {
     } //end outputCoordinates
 
     public static Pair roundCalinescu(FlowNetwork flowNetwork,
-                                      Map<Integer, double[]> vertexLabels,
+                                      LabelMatrix vertexLabels,
                                       LinkedList<Pair> terminalOrder) {
 
-        Map<Integer, LinkedList<Integer>> partitions = new LinkedHashMap<>();
+        CompactGraph compact = flowNetwork.freeze();
+        int[] partition = roundCalinescu(compact, flowNetwork.getTerminals(), vertexLabels, terminalOrder);
         Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
 
-        // Initialize the partition list
-        for (int i = 0; i < flowNetwork.getK(); i++) {
+        for (int terminal : flowNetwork.getTerminals()) {
 
-            partitions.put(i, new LinkedList<Integer>());
-            partitions.get(i).add((int)terminalOrder.get(i).index);
-            vertices.get((int)terminalOrder.get(i).index).setCalinescu(i);
+            vertices.get(terminal).setCalinescu(partition[compact.index(terminal)]);
 
         } //end for
 
-        // Set all the vertices to the kth list
-        for (Map.Entry<Integer, double[]> entry : vertexLabels.entrySet()) {
+        setCalinescu(flowNetwork, compact, vertexLabels, partition);
 
-            if (!flowNetwork.getTerminals().contains(entry.getKey())) {
+        return new Pair(calinescuCost(compact), terminalOrder.get(0).value);
 
-                partitions.get(flowNetwork.getK() - 1).add(entry.getKey());
-                vertices.get(entry.getKey()).setCalinescu(flowNetwork.getK() - 1);
+    } //end round
 
-            } //end if
+    /**
+     * Rounds the labels of a graph with the thresholds of terminalOrder. The ith terminal
+     * of the order takes the ith part, and every other vertex with a row takes the part
+     * of the first of the first k-1 terminals it is within the threshold of, or the
+     * last part if there is none.
+     * @param graph the graph, such as a MappedGraph
+     * @param terminals the ids of the terminals
+     * @param vertexLabels the labels, one row per vertex id
+     * @param terminalOrder the terminals, in order, each with its threshold
+     * @return the part of each vertex, indexed by vertex, or -1 for a vertex with no row
+     */
+    public static int[] roundCalinescu(FlowGraph graph,
+                                       LinkedList<Integer> terminals,
+                                       LabelMatrix vertexLabels,
+                                       LinkedList<Pair> terminalOrder) {
+
+        int k = terminals.size();
+        int[] partition = new int[graph.getNumVertices()];
+        int[] coordinates = new int[k];
+        double[] thresholds = new double[k];
+        double[] labels = vertexLabels.getValues();
+
+        Arrays.fill(partition, -1);
+
+        for (int i = 0; i < k; i++) {
+
+            coordinates[i] = getIndex(terminals, (int)terminalOrder.get(i).index);
+            thresholds[i] = terminalOrder.get(i).value;
 
         } //end for
 
-        // Group vertices within a sphere of radius rand with a terminal
-        for (int i = 0; i < flowNetwork.getK() - 1; i++) {
+        for (int r = 0; r < vertexLabels.getNumRows(); r++) {
 
-            ListIterator<Integer> it = partitions.get(flowNetwork.getK() - 1).listIterator();
+            int v = graph.index(vertexLabels.id(r));
 
-            // Loop through all of the vertices remaining in the kth list
-            while (it.hasNext()) {
+            if (v >= 0 && !terminals.contains(vertexLabels.id(r))) {
 
-                int vertex = it.next();
+                int offset = vertexLabels.offset(r);
+                int part = k - 1;
 
-                // The distance is within the sphere of radius rand
-                if (vertexLabels.get(vertex)[getIndex(flowNetwork.getTerminals(), (int)terminalOrder.get(i).index)] >= terminalOrder.get(i).value) {
+                // Group the vertex with the first terminal whose sphere holds it
+                for (int i = 0; i < k - 1 && part == k - 1; i++) {
 
-                    it.remove();
-                    partitions.get(i).add(vertex);
-                    vertices.get(vertex).setCalinescu(i);
+                    if (labels[offset + coordinates[i]] >= thresholds[i]) {
 
-                } //end if
+                        part = i;
+
+                    } //end if
+
+                } //end for
+
+                partition[v] = part;
 
-            } //end while
+            } //end if
 
         } //end for
 
-        return new Pair(calinescuCost(flowNetwork.getEdges()), terminalOrder.get(0).value);
+        for (int i = 0; i < k; i++) {
 
-    } //end round
+            partition[graph.index((int)terminalOrder.get(i).index)] = i;
+
+        } //end for
+
+        return partition;
+
+    } //end roundCalinescu
 
     public static double roundBuchbinder(FlowNetwork flowNetwork,
-                                      Map<Integer, double[]> vertexLabels) {
+                                      LabelMatrix vertexLabels) {
 
-        Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
+        CompactGraph compact = flowNetwork.freeze();
 
-        double clocks[] = new double[flowNetwork.getK()];
+        setCalinescu(flowNetwork, compact, vertexLabels, roundBuchbinder(compact, vertexLabels, flowNetwork.getK()));
+
+        return calinescuCost(compact);
+
+    } //end round
+
+    /**
+     * Rounds the labels of a graph with exponential clocks. Every vertex with a row
+     * takes the part whose clock, scaled by its label, runs out first.
+     * @param graph the graph, such as a MappedGraph
+     * @param vertexLabels the labels, one row per vertex id
+     * @param k the number of terminals
+     * @return the part of each vertex, indexed by vertex, or -1 for a vertex with no row
+     */
+    public static int[] roundBuchbinder(FlowGraph graph,
+                                        LabelMatrix vertexLabels,
+                                        int k) {
+
+        int[] partition = new int[graph.getNumVertices()];
+        double[] labels = vertexLabels.getValues();
+
+        double clocks[] = new double[k];
+
+        Arrays.fill(partition, -1);
 
         // Generate the exponential random variables
-        for (int i = 0; i < flowNetwork.getK(); i++) {
+        for (int i = 0; i < k; i++) {
 
             clocks[i] = StdRandom.exp(1);
 
         } //end for
 
         // Scale each vertex using the exponential clocks
-        for (Map.Entry<Integer, double[]> entry : vertexLabels.entrySet()) {
+        for (int r = 0; r < vertexLabels.getNumRows(); r++) {
 
             double bestClock = Double.MAX_VALUE;
             double clock;
             int index = -1;
+            int offset = vertexLabels.offset(r);
+            int v = graph.index(vertexLabels.id(r));
+
+            if (v < 0) {
+
+                continue;
+
+            } //end if
 
             // Find the smallest exponential clock
-            for (int i = 0; i < flowNetwork.getK(); i++) {
+            for (int i = 0; i < k; i++) {
 
-                if (entry.getValue()[i] == 0) {
+                if (labels[offset + i] == 0) {
 
                     clock = Double.MAX_VALUE;
-                    //StdOut.println("Vertex " + entry.getKey() + ": Clock " + i + " (" + clocks[i] + ") NOT divided by 0 (set to infinity)");
 
                 } //end if
 
                 else {
 
-                    clock = clocks[i] / entry.getValue()[i];
-                    //StdOut.println("Vertex " + entry.getKey() + ": Clock " + i + " (" + clocks[i] + ") divided by " + entry.getValue()[i] + " = " + clock);
+                    clock = clocks[i] / labels[offset + i];
 
                 } //end else
 
@@ -298,18 +363,45 @@ public class CalinescuUtility {
 
             } //end for
 
-            //StdOut.println("Vertex " + entry.getKey() + " assigned to label " + index);
-            vertices.get(entry.getKey()).setCalinescu(index);
+            partition[v] = index;
 
         } //end for
 
-        return calinescuCost(flowNetwork.getEdges());
+        return partition;
 
-    } //end round
+    } //end roundBuchbinder
 
-    private static double[] newPoint(FlowNetwork flowNetwork, FlowEdge edge, Map<Integer, double[]> vertexLabels) {
+    /**
+     * Gives every vertex with a row the part the rounding chose for it.
+     * @param flowNetwork the flow network
+     * @param compact the frozen form of the flow network
+     * @param vertexLabels the labels, one row per vertex id
+     * @param partition the part of each vertex, indexed by vertex of compact
+     */
+    private static void setCalinescu(FlowNetwork flowNetwork,
+                                     CompactGraph compact,
+                                     LabelMatrix vertexLabels,
+                                     int[] partition) {
+
+        Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
+
+        for (int r = 0; r < vertexLabels.getNumRows(); r++) {
+
+            int id = vertexLabels.id(r);
+
+            vertices.get(id).setCalinescu(partition[compact.index(id)]);
+
+        } //end for
+
+    } //end setCalinescu
+
+    private static double[] newPoint(FlowNetwork flowNetwork, FlowEdge edge, LabelMatrix vertexLabels) {
 
         double[] newPoint = new double[flowNetwork.getK()];
+        double[] labels = vertexLabels.getValues();
+
+        int u = vertexLabels.offset(vertexLabels.row(edge.getStartVertex().id()));
+        int v = vertexLabels.offset(vertexLabels.row(edge.getEndVertex().id()));
 
         int terminal1 = -1;
         int terminal2 = -1;
@@ -322,23 +414,19 @@ public class CalinescuUtility {
         // Find two coordinates to change
         for (int i = 0; i < flowNetwork.getK(); i++) {
 
-            //StdOut.println("Edge: " + edge.edgeToString() + ", Coordinate: " + i);
-
             // xu < xv
-            if (vertexLabels.get(edge.getStartVertex().id())[i] < vertexLabels.get(edge.getEndVertex().id())[i] && terminal1 < 0) {
+            if (labels[u + i] < labels[v + i] && terminal1 < 0) {
 
                 terminal1 = i;
-                difference1 = vertexLabels.get(edge.getEndVertex().id())[i] - vertexLabels.get(edge.getStartVertex().id())[i];
-                //StdOut.println("End Vertex: " + vertexLabels.get(edge.getEndVertex().id())[i] + " Start Vertex: " + vertexLabels.get(edge.getStartVertex().id())[i] + " Difference1: " + difference1);
+                difference1 = labels[v + i] - labels[u + i];
 
             } //end if
 
             // xu > xv
-            if (vertexLabels.get(edge.getStartVertex().id())[i] > vertexLabels.get(edge.getEndVertex().id())[i] && terminal2 < 0) {
+            if (labels[u + i] > labels[v + i] && terminal2 < 0) {
 
                 terminal2 = i;
-                difference2 = vertexLabels.get(edge.getStartVertex().id())[i] - vertexLabels.get(edge.getEndVertex().id())[i];
-                //StdOut.println("Start Vertex: " + vertexLabels.get(edge.getStartVertex().id())[i] + " End Vertex: " + vertexLabels.get(edge.getEndVertex().id())[i] + " Difference2: " + difference2);
+                difference2 = labels[u + i] - labels[v + i];
 
             } //end if
 
@@ -359,17 +447,17 @@ public class CalinescuUtility {
 
         for (int i = 0; i < flowNetwork.getK(); i++) {
 
-            newPoint[i] = vertexLabels.get(edge.getStartVertex().id())[i];
+            newPoint[i] = labels[u + i];
 
             if (i == terminal1) {
 
-                newPoint[i] = vertexLabels.get(edge.getStartVertex().id())[i] + alpha;
+                newPoint[i] = labels[u + i] + alpha;
 
             } //end if
 
             if (i == terminal2) {
 
-                newPoint[i] = vertexLabels.get(edge.getStartVertex().id())[i] - alpha;
+                newPoint[i] = labels[u + i] - alpha;
 
             } //end if
 
@@ -382,9 +470,9 @@ public class CalinescuUtility {
     private static void subdivide(FlowNetwork flowNetwork,
                                   LinkedList<FlowEdge> queue,
                                   FlowEdge edge,
-                                  Map<Integer, double[]> vertexLabels) {
+                                  LabelMatrix vertexLabels) {
 
-        vertexLabels.put(flowNetwork.getMaxVertexId() + 1, newPoint(flowNetwork, edge, vertexLabels));
+        vertexLabels.addRow(flowNetwork.getMaxVertexId() + 1, newPoint(flowNetwork, edge, vertexLabels));
 
         FlowEdge uw = flowNetwork.addEdge(edge.getStartVertex().id(), flowNetwork.getMaxVertexId() + 1, edge.getCapacity(), edge.getOriginal());
         FlowEdge wv = flowNetwork.addEdge(flowNetwork.getMaxVertexId(), edge.getEndVertex().id(), edge.getCapacity(), edge.getOriginal());
@@ -398,35 +486,35 @@ public class CalinescuUtility {
 
     private static void checkCoordinates(FlowNetwork flowNetwork,
                                          LinkedList<FlowEdge> queue,
-                                         Map<Integer, double[]> vertexLabels) {
+                                         LabelMatrix vertexLabels) {
 
         FlowEdge edge = queue.removeFirst();
+        double[] labels = vertexLabels.getValues();
+        int u = vertexLabels.offset(vertexLabels.row(edge.getStartVertex().id()));
+        int v = vertexLabels.offset(vertexLabels.row(edge.getEndVertex().id()));
         int count = 0;
 
         // Check the coordinates
         for (int i = 0; i < flowNetwork.getK(); i++) {
 
-            vertexLabels.get(edge.getStartVertex().id())[i] = Math.round(vertexLabels.get(edge.getStartVertex().id())[i] * 100) / 100;
-            vertexLabels.get(edge.getEndVertex().id())[i] = Math.round(vertexLabels.get(edge.getEndVertex().id())[i] * 100) / 100;
+            labels[u + i] = Math.round(labels[u + i] * 100) / 100;
+            labels[v + i] = Math.round(labels[v + i] * 100) / 100;
 
-            if (vertexLabels.get(edge.getStartVertex().id())[i] < 0.0) {
+            if (labels[u + i] < 0.0) {
 
-                vertexLabels.get(edge.getStartVertex().id())[i] = 0.0;
+                labels[u + i] = 0.0;
 
             } //end if
 
-            if (vertexLabels.get(edge.getEndVertex().id())[i] < 0.0) {
+            if (labels[v + i] < 0.0) {
 
-                vertexLabels.get(edge.getEndVertex().id())[i] = 0.0;
+                labels[v + i] = 0.0;
 
             } //end if
 
             // The ith coordinate differs
+            if (labels[u + i] != labels[v + i]) {
 
-            //if (Math.floor(vertexLabels.get(edge.getStartVertex().id())[i] * 100) / 1000 != Math.floor(vertexLabels.get(edge.getEndVertex().id())[i] * 100) / 1000) {
-                //if (Math.round(vertexLabels.get(edge.getStartVertex().id())[i] * 100) / 100 != Math.round(vertexLabels.get(edge.getEndVertex().id())[i] * 100) / 100) {
-                    if (vertexLabels.get(edge.getStartVertex().id())[i] != vertexLabels.get(edge.getEndVertex().id())[i]) {
-                //if (!String.format("%.3f", vertexLabels.get(edge.getStartVertex().id())[i]).equals(String.format("%.3f", vertexLabels.get(edge.getEndVertex().id())[i]))) {
                 count++;
 
             } //end if
@@ -436,38 +524,67 @@ public class CalinescuUtility {
         // Subdivision is required
         if (count > 2) {
 
-            //StdOut.println("The edge (" + edge.getStartVertex().id() + ", " + edge.getEndVertex().id() + ") needs to be subdivided");
             subdivide(flowNetwork, queue, edge, vertexLabels);
 
         } //end if
 
     } //end checkCoordinates
 
-    public static double calinescuCost(LinkedList<FlowEdge> edges) {
+    public static double calinescuCost(CompactGraph graph) {
+
+        int[] partition = new int[graph.getNumVertices()];
+
+        for (int v = 0; v < graph.getNumVertices(); v++) {
 
-        ListIterator<FlowEdge> it = edges.listIterator();
-        LinkedList<FlowEdge> multiwayCut = new LinkedList<>();
+            partition[v] = graph.getVertex(v).getCalinescu();
 
-        double multiwayCutCost = 0.0;
+        } //end for
+
+        return calinescuCost(graph, partition);
+
+    } //end calinescuCost
 
-        while (it.hasNext()) {
+    /**
+     * Computes the weight of the edges whose endpoints are in different parts.
+     * Subdivided edges are charged once, through their original edge, and every
+     * piece of an edge has the capacity of the original.
+     * @param graph the subdivided network
+     * @param partition the part of each vertex, indexed by vertex
+     * @return the weight of the multiway cut
+     */
+    public static double calinescuCost(FlowGraph graph, int[] partition) {
+
+        return MinCut.edgeWeight(graph, cutEdges(graph, partition));
+
+    } //end calinescuCost
 
-            FlowEdge edge = it.next();
+    /**
+     * Finds the edges whose endpoints are in different parts. A subdivided edge is
+     * given by its first piece that is cut.
+     * @param graph the subdivided network
+     * @param partition the part of each vertex, indexed by vertex
+     * @return the edge indices of the multiway cut
+     */
+    public static BitSet cutEdges(FlowGraph graph, int[] partition) {
 
-            if (edge.getStartVertex().getCalinescu() != edge.getEndVertex().getCalinescu()
-                    && !multiwayCut.contains(edge)
-                    && !multiwayCut.contains(edge.getOriginal())) {
+        BitSet charged = new BitSet(graph.getNumEdges());
+        BitSet cut = new BitSet(graph.getNumEdges());
 
-                multiwayCut.add(edge.getOriginal());
-                multiwayCutCost += edge.getOriginal().getCapacity();
-                //StdOut.println("Edge: " + edge.getOriginal().edgeToString() + ", Capacity: " + edge.getCapacity() + ", Sum: " + multiwayCutCost);
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+
+            int original = graph.originalEdge(e);
+
+            if (partition[graph.edgeTail(e)] != partition[graph.edgeHead(e)] && !charged.get(original)) {
+
+                charged.set(original);
+                cut.set(e);
 
             } //end if
 
-        } //end while
+        } //end for
 
-        return multiwayCutCost;
+        return cut;
 
-    } //end calinescuCost
+    } //end cutEdges
 
 } //end CalinescuUtility
@@ -1,8 +1,8 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
-import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-31.
@@ -25,7 +25,7 @@ public class DescendingThreshold2 implements MultiwayCutStrategy {
     } //end getTime
 
     private double round(FlowNetwork flowNetwork,
-                         Map<Integer, double[]> vertexLabels) {
+                         LabelMatrix vertexLabels) {
 
         double b = 6.0 / 11.0;
 
@@ -43,7 +43,7 @@ public class DescendingThreshold2 implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Sharma and Vondrak's descending threshold 2");
         double cost = round(flowNetwork, vertexLabels);
@@ -1,9 +1,8 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
-import java.util.LinkedHashMap;
-import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-07.
@@ -29,7 +28,7 @@ public class ExponentialClocks implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Exponential Clocks");
         long start = System.nanoTime();
@@ -1,14 +1,13 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
 import library.StdRandom;
 import utility.MonteCarlo;
 import utility.Pair;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -32,7 +31,7 @@ public class IndependentThreshold implements MultiwayCutStrategy{
     } //end getTime
 
     private double round(FlowNetwork flowNetwork,
-                      Map<Integer, double[]> vertexLabels) {
+                      LabelMatrix vertexLabels) {
 
         double b = 6.0 / 11.0;
 
@@ -50,7 +49,7 @@ public class IndependentThreshold implements MultiwayCutStrategy{
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Sharma and Vondrak's independent threshold");
         double cost = round(flowNetwork, vertexLabels);
@@ -0,0 +1,371 @@
+package algorithms;
+
+import datastructures.flownetwork.ContractedGraph;
+import datastructures.flownetwork.FlowGraph;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.MaxFlowEngine;
+import datastructures.flownetwork.MinCut;
+
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * IsolatingCuts.java
+ *
+ * Course: CS4490Z
+ *
+ * Computes a minimum isolating cut for every terminal, the cut that separates the
+ * terminal from all of the other terminals, with the isolating cuts technique of
+ * Li and Panigrahi.
+ *
+ * Every terminal is numbered in binary. For each of the log k bits, a minimum cut
+ * separates the terminals with a 0 in that bit from the terminals with a 1. A terminal
+ * keeps the side of each of these cuts that holds it, and the intersection of those
+ * sides is its region. A smaller flow inside each region, with the rest of the
+ * graph contracted into a sink, then gives the isolating cut of that terminal.
+ *
+ * Each bipartition cut is found on the frozen form of the flow network with each
+ * group of terminals merged into one vertex, and the engine cuts it once from each
+ * group. An engine may return any side of a minimum cut: Dinic and the second phase
+ * of push-relabel return the smallest source side, and the first phase the largest.
+ * A group keeps the part of its side that is not in the side of the other group.
+ * Minimum cuts are closed under intersection, so that part is still the side of a
+ * minimum cut, and it is the smallest one when the engine returns either the
+ * smallest or the largest sides. The sides of the two groups are then disjoint,
+ * so the regions are disjoint and hold at most n vertices between them. The
+ * smallest minimum isolating cut of a terminal lies inside its region all the same.
+ *
+ * The bipartition cuts and the region cuts are independent of each other. With more
+ * than one thread they run on a fork-join pool. Every task contracts the frozen form
+ * of the flow network, which is only read, into arc arrays of its own, sized by its
+ * region for a region cut, and cuts them with its own copy of the engine.
+ *
+ * With a deadline, the bipartition cuts are skipped and a terminal whose region cut
+ * has not started by then is isolated by cutting every edge at the terminal instead.
+ * That is still an isolating cut, only not a minimum one.
+ */
+public class IsolatingCuts {
+
+    private MaxFlowEngine maxFlowEngine;
+    private int threads;
+    private long deadline = Long.MAX_VALUE;
+
+    public IsolatingCuts(MaxFlowEngine maxFlowEngine) {
+
+        this(maxFlowEngine, 1);
+
+    } //end IsolatingCuts
+
+    public IsolatingCuts(MaxFlowEngine maxFlowEngine, int threads) {
+
+        if (threads < 1) {
+
+            throw new IllegalArgumentException("Choose at least one thread");
+
+        } //end if
+
+        this.maxFlowEngine = maxFlowEngine;
+        this.threads = threads;
+
+    } //end IsolatingCuts
+
+    /**
+     * Sets the time after which no more flows are started.
+     * @param deadline the value of System.nanoTime at the deadline
+     */
+    public void setDeadline(long deadline) {
+
+        this.deadline = deadline;
+
+    } //end setDeadline
+
+    /**
+     * Computes a minimum isolating cut for every terminal, as a cut of the frozen form
+     * of the flow network.
+     * @param flowNetwork the flow network
+     * @return the cuts, in the order of the terminals
+     */
+    public LinkedList<MinCut> computeIsolatingCuts(FlowNetwork flowNetwork) {
+
+        return computeIsolatingCuts(flowNetwork.freeze(), flowNetwork.getTerminals());
+
+    } //end computeIsolatingCuts
+
+    /**
+     * Computes a minimum isolating cut for every terminal of a graph, such as a
+     * MappedGraph too large for the heap. The cuts hold vertex and edge indices of
+     * the graph, so they are read with getSourceSide and getCutEdgeSet.
+     * @param graph the graph
+     * @param t the ids of the terminals
+     * @return the cuts, in the order of the terminals
+     */
+    public LinkedList<MinCut> computeIsolatingCuts(FlowGraph graph, LinkedList<Integer> t) {
+
+        int k = t.size();
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(k - 1, 1));
+
+        BitSet[] regions = new BitSet[k];
+
+        // Start with every vertex except the other terminals
+        for (int i = 0; i < k; i++) {
+
+            regions[i] = new BitSet(graph.getNumVertices());
+            regions[i].set(0, graph.getNumVertices());
+
+            for (int j = 0; j < k; j++) {
+
+                if (j != i) {
+
+                    regions[i].clear(graph.index(t.get(j)));
+
+                } //end if
+
+            } //end for
+
+        } //end for
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+        try {
+
+            // The bipartition flows only pay off when there are fewer of them than terminals
+            if (bits < k - 1 && System.nanoTime() < deadline) {
+
+                LinkedList<Callable<BitSet[]>> tasks = new LinkedList<>();
+
+                for (int b = 0; b < bits; b++) {
+
+                    final int bit = b;
+                    final MaxFlowEngine engine = pool == null ? maxFlowEngine : maxFlowEngine.copy();
+                    tasks.add(() -> bipartitionCut(graph, t, bit, engine));
+
+                } //end for
+
+                LinkedList<BitSet[]> sides = runAll(pool, tasks);
+
+                for (int b = 0; b < bits; b++) {
+
+                    // Keep the side of the cut that holds each terminal
+                    for (int i = 0; i < k; i++) {
+
+                        regions[i].and(sides.get(b)[(i >> b) & 1]);
+
+                    } //end for
+
+                } //end for
+
+            } //end if
+
+            LinkedList<Callable<MinCut>> tasks = new LinkedList<>();
+
+            for (int i = 0; i < k; i++) {
+
+                final BitSet region = regions[i];
+                final int terminal = t.get(i);
+                final MaxFlowEngine engine = pool == null ? maxFlowEngine : maxFlowEngine.copy();
+                tasks.add(() -> System.nanoTime() < deadline
+                        ? regionCut(graph, region, terminal, engine)
+                        : terminalCut(graph, terminal));
+
+            } //end for
+
+            return runAll(pool, tasks);
+
+        } //end try
+
+        finally {
+
+            if (pool != null) {
+
+                pool.shutdown();
+
+            } //end if
+
+        } //end finally
+
+    } //end computeIsolatingCuts
+
+    /**
+     * Runs tasks on the pool, or one after another when there is no pool.
+     * @param pool the pool, or null
+     * @param tasks the tasks
+     * @return the results, in the order of the tasks
+     */
+    private <T> LinkedList<T> runAll(ForkJoinPool pool, LinkedList<Callable<T>> tasks) {
+
+        LinkedList<T> results = new LinkedList<>();
+
+        try {
+
+            if (pool == null) {
+
+                for (Callable<T> task : tasks) {
+
+                    results.add(task.call());
+
+                } //end for
+
+            } //end if
+
+            else {
+
+                for (Future<T> future : pool.invokeAll(tasks)) {
+
+                    results.add(future.get());
+
+                } //end for
+
+            } //end else
+
+        } //end try
+
+        catch (ExecutionException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+
+                throw (RuntimeException) e.getCause();
+
+            } //end if
+
+            throw new IllegalStateException("An isolating cut failed", e.getCause());
+
+        } //end catch
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the isolating cuts", e);
+
+        } //end catch
+
+        catch (Exception e) {
+
+            throw new IllegalStateException("An isolating cut failed", e);
+
+        } //end catch
+
+        return results;
+
+    } //end runAll
+
+    /**
+     * Cuts the terminals with a 0 in one bit from the terminals with a 1. Each group
+     * of terminals is merged into one vertex of a contracted graph, which stands in
+     * for a super source or a super sink joined to the group by edges of infinite
+     * capacity.
+     * @param graph the graph
+     * @param t the terminals
+     * @param bit the bit that splits the terminals
+     * @param engine the maximum flow engine
+     * @return disjoint 0 and 1 sides of minimum cuts, over the vertices of graph
+     */
+    private BitSet[] bipartitionCut(FlowGraph graph, LinkedList<Integer> t, int bit, MaxFlowEngine engine) {
+
+        int n = graph.getNumVertices();
+
+        BitSet kept = new BitSet(n);
+        BitSet zeroTerminals = new BitSet(n);
+        BitSet[] sides = {new BitSet(n), new BitSet(n)};
+
+        kept.set(0, n);
+
+        for (int i = 0; i < t.size(); i++) {
+
+            int v = graph.index(t.get(i));
+
+            kept.clear(v);
+            sides[(i >> bit) & 1].set(v);
+
+            if (((i >> bit) & 1) == 0) {
+
+                zeroTerminals.set(v);
+
+            } //end if
+
+        } //end for
+
+        ContractedGraph network = new ContractedGraph(graph, kept, zeroTerminals);
+
+        BitSet zeroSide = engine.minimumCut(network, network.getSource(), network.getSink()).getSourceSide();
+        BitSet oneSide = engine.minimumCut(network, network.getSink(), network.getSource()).getSourceSide();
+
+        // Each group gives up what the other group claims, which leaves the smallest sides
+        for (int w = 0; w < network.getSource(); w++) {
+
+            sides[0].set(network.baseIndex(w), zeroSide.get(w) && !oneSide.get(w));
+            sides[1].set(network.baseIndex(w), oneSide.get(w) && !zeroSide.get(w));
+
+        } //end for
+
+        return sides;
+
+    } //end bipartitionCut
+
+    /**
+     * Computes the minimum cut between a terminal and everything outside its region,
+     * on a contracted graph where the vertices outside the region are merged into
+     * the sink.
+     * @param graph the graph
+     * @param region the region of the terminal
+     * @param terminal the terminal
+     * @param engine the maximum flow engine
+     * @return the cut, with its source side mapped back onto graph
+     */
+    private MinCut regionCut(FlowGraph graph, BitSet region, int terminal, MaxFlowEngine engine) {
+
+        int v = graph.index(terminal);
+
+        BitSet kept = (BitSet) region.clone();
+        BitSet sourceSet = new BitSet(graph.getNumVertices());
+        BitSet sourceSide = new BitSet(graph.getNumVertices());
+
+        kept.clear(v);
+        sourceSet.set(v);
+        sourceSide.set(v);
+
+        ContractedGraph restricted = new ContractedGraph(graph, kept, sourceSet);
+        MinCut minCut = engine.minimumCut(restricted, restricted.getSource(), restricted.getSink());
+
+        for (int w = 0; w < restricted.getSource(); w++) {
+
+            if (minCut.getSourceSide().get(w)) {
+
+                sourceSide.set(restricted.baseIndex(w));
+
+            } //end if
+
+        } //end for
+
+        return new MinCut(graph, sourceSide, minCut.getValue());
+
+    } //end regionCut
+
+    /**
+     * Isolates a terminal by cutting every edge at it.
+     * @param graph the graph
+     * @param terminal the terminal
+     * @return the cut whose source side is the terminal alone
+     */
+    private MinCut terminalCut(FlowGraph graph, int terminal) {
+
+        int v = graph.index(terminal);
+        BitSet sourceSide = new BitSet(graph.getNumVertices());
+        double value = 0.0;
+
+        sourceSide.set(v);
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            value += graph.capacity(graph.arcEdge(a));
+
+        } //end for
+
+        return new MinCut(graph, sourceSide, value);
+
+    } //end terminalCut
+
+} //end IsolatingCuts
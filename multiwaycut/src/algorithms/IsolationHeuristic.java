@@ -1,12 +1,16 @@
 package algorithms;
 
-import datastructures.flownetwork.FlowEdge;
+import datastructures.flownetwork.CompactGraph;
+import datastructures.flownetwork.FlowGraph;
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.MaxFlowEngine;
+import datastructures.flownetwork.MinCut;
+import datastructures.flownetwork.PushRelabel;
 import library.In;
 import library.StdOut;
 
+import java.util.BitSet;
 import java.util.LinkedList;
-import java.util.ListIterator;
 import java.util.Map;
 
 /**
@@ -18,81 +22,51 @@ import java.util.Map;
  * The IsolationHeuristic approximation algorithm performs a series
  * of minimum cuts to isolate specific vertices one at a time to solve
  * the multiway cut problem. It computes k-1 cuts, discarding the heaviest cut.
+ *
+ * With a time budget, the terminals whose cuts have not started when it runs out
+ * are isolated by the edges at the terminal, so a run always ends with a multiway
+ * cut, if a heavier one.
+ *
+ * computeMultiwayCutEdges runs on any FlowGraph, such as a MappedGraph too large
+ * for the heap, and returns the cut as edge indices of that graph.
  */
 public class IsolationHeuristic implements MultiwayCutStrategy {
 
     private long time;
     private Map<Integer, Integer> labelling;
+    private MaxFlowEngine maxFlowEngine = new PushRelabel();
+    private int threads = 1;
+    private long timeBudget;
+    private ProgressListener progressListener;
+    private int heavyIndex;
 
     /**
-     * Adds an extra edge with infinity capacity from every vertex to the sink.
-     * @param flowNetwork the flow network
-     */
-    private void initializeInfinityEdges(FlowNetwork flowNetwork) {
-
-        LinkedList<Integer> t = flowNetwork.getTerminals();
-
-        int k = flowNetwork.getK();
-        int n = flowNetwork.getMaxVertexId();
-
-        // Add an edge from each vertex to the sink with an infinity edge
-        for (int i = 0; i < k; i++) {
-
-            flowNetwork.addEdge(t.get(i), n, Integer.MAX_VALUE);
-
-        } //end for
-
-    } //end initializeInfinityEdges
-
-    /**
-     * Computes a minimum cut from each terminal vertex to the sink.
-     * @param flowNetwork the flow network
+     * Computes a minimum isolating cut for each terminal vertex.
+     * @param graph the graph
+     * @param terminals the ids of the terminals
      * @param allMinCut a list of all the minimum cuts
      * @param cutWeights a list of weights for the minimum cuts
+     * @param start the value of System.nanoTime when the run started
      */
-    private void computeMinimumCut(FlowNetwork flowNetwork,
-                                   LinkedList<LinkedList<FlowEdge>> allMinCut,
-                                   LinkedList<Double> cutWeights) {
-
-        LinkedList<Integer> t = flowNetwork.getTerminals();
+    private void computeMinimumCut(FlowGraph graph,
+                                   LinkedList<Integer> terminals,
+                                   LinkedList<MinCut> allMinCut,
+                                   LinkedList<Double> cutWeights,
+                                   long start) {
 
-        int k = flowNetwork.getK();
-        int n = flowNetwork.getMaxVertexId();
+        IsolatingCuts isolatingCuts = new IsolatingCuts(maxFlowEngine, threads);
 
-        // Compute a minimum cut to isolate each of the k terminal vertices
-        for (int i = 0; i < k; i++) {
-
-            double sum = 0;
+        if (timeBudget > 0) {
 
-            // Remove the infinity edge for the current source vertex
-            flowNetwork.removeEdge(t.get(i), n);
+            isolatingCuts.setDeadline(start + timeBudget * 1000000);
 
-            // Add back the infinity edge to the previous terminal vertex
-            if (i > 0) {
+        } //end if
 
-                flowNetwork.addEdge(t.get(i - 1), n, Integer.MAX_VALUE);
+        // Store the edges and weight of the cut that isolates each terminal
+        for (MinCut minCut : isolatingCuts.computeIsolatingCuts(graph, terminals)) {
 
-            } //end if
-
-            // Compute the minimum cut for the specified terminal vertex, store the edges
-            LinkedList<FlowEdge> minCut = flowNetwork.goldbergTarjan(t.get(i), n);
             allMinCut.add(minCut);
-
-            ListIterator<FlowEdge> it = minCut.listIterator();
-
-            // Compute the weight of the cut
-            while (it.hasNext()) {
-
-                FlowEdge edge = it.next();
-                sum += edge.getCapacity();
-
-                //StdOut.println("Edge: " + edge.edgeToString());
-
-            } //end while
-
-            //StdOut.println("Min cut weight: " + sum);
-            //StdOut.println();
-            cutWeights.add(sum);
+            cutWeights.add(minCut.getValue());
 
         } //end for
 
@@ -131,54 +105,38 @@ public class IsolationHeuristic implements MultiwayCutStrategy {
      * @param k the number of terminal vertices
      * @param heavyIndex the index of the heaviest cut
      * @param allMinCut a list of all the minimum cuts
-     * @param multiwayCut a list of edges in the multiway cut
+     * @return the edge indices of the multiway cut
      */
-    private void unionCuts(int k,
-                           int heavyIndex,
-                           LinkedList<LinkedList<FlowEdge>> allMinCut,
-                           LinkedList<FlowEdge> multiwayCut) {
+    private BitSet unionCuts(int k,
+                             int heavyIndex,
+                             LinkedList<MinCut> allMinCut) {
+
+        // The cuts share one graph, so their edge sets can be merged directly
+        BitSet union = new BitSet();
 
         // Compute the union of all cuts except the heaviest cut
         for (int i = 0; i < k; i++) {
 
             if (i != heavyIndex) {
 
-                ListIterator<FlowEdge> it = allMinCut.get(i).listIterator();
-
-                while (it.hasNext()) {
-
-                    FlowEdge edge = it.next();
-
-                    if (!multiwayCut.contains(edge)){
-
-                        multiwayCut.add(edge);
-
-                    } //end if
-
-                } //end while
+                union.or(allMinCut.get(i).getCutEdgeSet());
 
             } //end if
 
         } //end for
 
+        return union;
+
     } //end unionCuts
 
     /**
      * Computes a minimum cut from each terminal vertex to the sink.
-     * @param multiwayCut a list of edges in the multiway cut
+     * @param graph the graph
+     * @param multiwayCut the edge indices of the multiway cut
      */
-    private double outputMultiwayCut(LinkedList<FlowEdge> multiwayCut) {
-
-        double multiwayCutWeight = 0;
-
-        //StdOut.println("Multiway Cut: ");
+    private double outputMultiwayCut(FlowGraph graph, BitSet multiwayCut) {
 
-        for (int i = 0; i < multiwayCut.size(); i++) {
-
-            //StdOut.println(multiwayCut.get(i).edgeToString());
-            multiwayCutWeight += multiwayCut.get(i).getCapacity();
-
-        } //end for
+        double multiwayCutWeight = MinCut.edgeWeight(graph, multiwayCut);
 
         StdOut.println("Isolation: The weight of the multiway cut: " + String.format("%.3f", multiwayCutWeight));
         return multiwayCutWeight;
@@ -191,6 +149,63 @@ public class IsolationHeuristic implements MultiwayCutStrategy {
 
     } //end getTime
 
+    /**
+     * Chooses the maximum flow engine used for the isolating cuts.
+     * @param maxFlowEngine the maximum flow engine
+     */
+    @Override
+    public void setMaxFlowEngine(MaxFlowEngine maxFlowEngine) {
+
+        this.maxFlowEngine = maxFlowEngine;
+
+    } //end setMaxFlowEngine
+
+    /**
+     * Limits how long the isolating cuts run. No flow is started once the time is up.
+     * @param milliseconds the time allowed, or 0 for no limit
+     */
+    @Override
+    public void setTimeBudget(long milliseconds) {
+
+        if (milliseconds < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative time budget");
+
+        } //end if
+
+        this.timeBudget = milliseconds;
+
+    } //end setTimeBudget
+
+    /**
+     * Chooses the listener told the cost of the multiway cut when the run ends.
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+
+        this.progressListener = listener;
+
+    } //end setProgressListener
+
+    /**
+     * Sets the number of threads the isolating cuts run on. With one thread they run
+     * one after another on the configured engine, otherwise every cut gets a copy of it.
+     * @param threads the number of threads
+     */
+    @Override
+    public void setThreads(int threads) {
+
+        if (threads < 1) {
+
+            throw new IllegalArgumentException("Choose at least one thread");
+
+        } //end if
+
+        this.threads = threads;
+
+    } //end setThreads
+
     @Override
     public Map<Integer, Integer> getIsolationHeuristicLabelling() {
 
@@ -204,29 +219,46 @@ public class IsolationHeuristic implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
+        CompactGraph compact = flowNetwork.freeze();
+        BitSet multiwayCut = computeMultiwayCutEdges(compact, flowNetwork.getTerminals());
+
+        labelling = new LocalSearchLabeller(new FlowNetwork(flowNetwork), null, null)
+                .getIsolationHeuristicLabelling(flowNetwork, MinCut.edgeList(compact, multiwayCut), heavyIndex);
+
+        return MinCut.edgeWeight(compact, multiwayCut);
+
+    } //end computeMultiwayCut
+
+    /**
+     * Computes a minimum multiway cut of a graph. No labelling is kept, since the
+     * graph has no FlowNetwork to label.
+     * @param graph the graph
+     * @param terminals the ids of the terminals
+     * @return the edge indices of the multiway cut
+     */
+    public BitSet computeMultiwayCutEdges(FlowGraph graph, LinkedList<Integer> terminals) {
+
         // The minimum cuts for each iteration
-        LinkedList<LinkedList<FlowEdge>> allMinCut = new LinkedList<>();
-        LinkedList<FlowEdge> multiwayCut = new LinkedList<>();
+        LinkedList<MinCut> allMinCut = new LinkedList<>();
         LinkedList<Double> cutWeights = new LinkedList<>();
 
-        int heavyIndex;
-
         StdOut.println("Isolation Heuristic");
 
         long start = System.nanoTime();
-        flowNetwork.addVertex(flowNetwork.getMaxVertexId() + 1);
-        initializeInfinityEdges(flowNetwork);
-        computeMinimumCut(flowNetwork, allMinCut, cutWeights);
-        heavyIndex = computeHeaviestCut(flowNetwork.getK(), cutWeights);
-        unionCuts(flowNetwork.getK(), heavyIndex, allMinCut, multiwayCut);
-        double cost = outputMultiwayCut(multiwayCut);
+        computeMinimumCut(graph, terminals, allMinCut, cutWeights, start);
+        heavyIndex = computeHeaviestCut(terminals.size(), cutWeights);
+        BitSet multiwayCut = unionCuts(terminals.size(), heavyIndex, allMinCut);
+        double cost = outputMultiwayCut(graph, multiwayCut);
         time = System.nanoTime() - start;
 
-        flowNetwork.removeVertex(flowNetwork.getMaxVertexId());
-        labelling = new LocalSearchLabeller(new FlowNetwork(flowNetwork), null, null).getIsolationHeuristicLabelling(flowNetwork, multiwayCut, heavyIndex);
+        if (progressListener != null) {
 
-        return cost;
+            progressListener.progress(time / 1e6, cost);
 
-    } //end computeMultiwayCut
+        } //end if
+
+        return multiwayCut;
+
+    } //end computeMultiwayCutEdges
 
 } //end IsolationHeuristic
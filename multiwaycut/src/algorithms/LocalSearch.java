@@ -2,10 +2,19 @@ package algorithms;
 
 import datastructures.flownetwork.*;
 import library.StdOut;
+import utility.Pair;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * LocalSearch.java
@@ -16,9 +25,31 @@ import java.util.Map;
  * The IsolationHeuristic approximation algorithm performs a series
  * of minimum cuts to isolate specific vertices one at a time to solve
  * the multiway cut problem. It computes k-1 cuts, discarding the heaviest cut.
+ *
+ * The k expansions of a round all start from the same labelling. With more than one
+ * thread they run at once on a fork-join pool that lasts for the whole run, each on
+ * its own capacities over the frozen expansion network and with its own copy of the
+ * engine, and the best of them is applied once they are all done.
+ *
+ * A time or iteration budget stops the search early. The budget is checked before
+ * every move and every round, and so is the interrupt flag of the running thread,
+ * so a scheduler can cut a run short. Local search never makes its labelling worse,
+ * so the labelling it stops with is the best it found.
+ *
+ * A round expands just the dirty labels: those whose last expansion improved on
+ * the labelling, and those that gained or lost vertices, or sit next to vertices
+ * that did, in the move last applied. This is a heuristic. An expansion is a global
+ * minimum cut, so a move between two other labels can change the best expansion of
+ * a label even when no moved vertex borders it. The search stays correct because a
+ * round of dirty labels that stalls is always followed by one round over every
+ * label, and the search only stops once that confirming round stalls too.
  */
 public class LocalSearch implements MultiwayCutStrategy {
 
+    private static final String EXPANSION = "EXPANSION";
+    private static final String SWAP = "SWAP";
+    private static final String HYBRID = "HYBRID";
+
     public int iterations = 0;
 
     private long time;
@@ -29,17 +60,39 @@ public class LocalSearch implements MultiwayCutStrategy {
 
     private MultiwayCutStrategy ih;
 
-    private Map<Integer, Integer> computeMinimumCostRelabel(FlowNetwork flowNetwork,
-                                                           LinkedList<Integer> terminals,
-                                                           int i) {
+    private MaxFlowEngine maxFlowEngine = new PushRelabel();
+
+    private int threads = 1;
+
+    private String neighbourhood = EXPANSION;
+
+    private LinkedList<Pair> costTrace;
+
+    private long timeBudget;
+    private long iterationBudget;
+    private ProgressListener progressListener;
+    private Supplier<double[]> incumbent;
+    private boolean abandoned;
+
+    private long deadline;
+    private long iterationLimit;
+    private ForkJoinPool pool;
+
+    /**
+     * Builds the network whose minimum cut gives the best expansion of a label. The
+     * original vertices keep their labels, every edge between two labels is split by
+     * an auxiliary vertex, and the source and sink of the returned network are set.
+     * @param flowNetwork the labelled flow network
+     * @param terminals the terminal vertices
+     * @param i the label being expanded
+     * @return the expansion network
+     */
+    public FlowNetwork expansionNetwork(FlowNetwork flowNetwork, LinkedList<Integer> terminals, int i) {
 
         FlowNetwork relabel = new FlowNetwork();
 
         Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
         Map<Integer, Double> auxiliarySinkCapacities = new LinkedHashMap<>();
-        Map<Integer, Integer> relabelledVertices = new LinkedHashMap<>();
-
-        LinkedList<FlowEdge> minCut;
 
         int nextId = flowNetwork.getMaxVertexId() + 1;
         int sourceId;
@@ -172,31 +225,310 @@ public class LocalSearch implements MultiwayCutStrategy {
 
         } //end for
 
-        minCut = relabel.goldbergTarjan(sourceId, sinkId);
-        FlowVertex source = relabel.getVertices().get(sourceId);
+        relabel.setSource(sourceId);
+        relabel.setSink(sinkId);
+
+        return relabel;
 
-        // Relabel vertices who's edge to the source is in the cut
-        for (FlowEdge edge : source.getAllEdges()) {
+    } //end expansionNetwork
 
-            // The vertex is relabelled
-            if (minCut.contains(edge)) {
+    /**
+     * Rewrites the capacities of an expansion network for another label. The network
+     * only depends on the labelling for its shape, so the expansions of every label
+     * against one labelling can share it.
+     * @param relabel the expansion network
+     * @param terminals the terminal vertices
+     * @param i the label being expanded
+     */
+    public void expansionCapacities(FlowNetwork relabel, LinkedList<Integer> terminals, int i) {
 
-                // Don't relabel terminal vertices
-                if (!terminals.contains(edge.getEndVertex().id())) {
+        for (Map.Entry<Integer, FlowVertex> entry : relabel.getVertices().entrySet()) {
 
-                    edge.getEndVertex().setLocalSearchLabel(i);
+            for (FlowEdge edge : entry.getValue().getAllEdges()) {
 
-                } //end if
+                edge.setCapacity(expansionCapacity(relabel, edge, terminals, i));
+
+            } //end for
+
+        } //end for
+
+    } //end expansionCapacities
+
+    /**
+     * Returns the capacity an edge of an expansion network has when a label is
+     * expanded. Edges between two vertices with the same label and the edges from
+     * auxiliary vertices to the sink keep the capacity they have.
+     * @param relabel the expansion network
+     * @param edge an edge of the expansion network
+     * @param terminals the terminal vertices
+     * @param i the label being expanded
+     * @return the capacity of the edge
+     */
+    private double expansionCapacity(FlowNetwork relabel, FlowEdge edge, LinkedList<Integer> terminals, int i) {
+
+        FlowVertex start = edge.getStartVertex();
+        FlowVertex end = edge.getEndVertex();
+
+        // Only terminals without the label being expanded are tied to the source
+        if (start.id() == relabel.getSource()) {
+
+            boolean tied = terminals.contains(end.id()) && end.getLocalSearchLabel() != i;
+            return tied ? Integer.MAX_VALUE : 0;
+
+        } //end if
+
+        // Vertices with the label being expanded are tied to the sink
+        else if (end.id() == relabel.getSink() && start.getLocalSearchLabel() >= 0) {
+
+            return start.getLocalSearchLabel() == i ? Integer.MAX_VALUE : 0;
+
+        } //end else if
+
+        // Edges to an auxiliary vertex
+        else if (end.getLocalSearchLabel() == -1) {
+
+            return start.getLocalSearchLabel() == i ? 0 : auxiliaryCapacity(relabel, end);
+
+        } //end else if
+
+        // Edges from an auxiliary vertex to an original vertex
+        else if (start.getLocalSearchLabel() == -1 && end.id() != relabel.getSink()) {
+
+            return end.getLocalSearchLabel() == i ? 0 : auxiliaryCapacity(relabel, start);
+
+        } //end else if
+
+        return edge.getCapacity();
+
+    } //end expansionCapacity
+
+    /**
+     * Returns whether the run has used up its time or iterations, or its thread has
+     * been interrupted.
+     * @return true if the search should stop
+     */
+    private boolean outOfBudget() {
+
+        return iterations >= iterationLimit || System.nanoTime() >= deadline
+                || Thread.currentThread().isInterrupted();
+
+    } //end outOfBudget
+
+    /**
+     * Records the cost after a round, and passes it on to the progress listener if it
+     * is the first cost or lower than the last.
+     * @param milliseconds the time since the run started
+     * @param cost the cost of the labelling
+     */
+    private void reportProgress(double milliseconds, double cost) {
+
+        boolean improved = costTrace.isEmpty() || cost < costTrace.getLast().value;
+
+        costTrace.add(new Pair(milliseconds, cost));
+
+        if (progressListener != null && improved) {
+
+            progressListener.progress(milliseconds, cost);
+
+        } //end if
+
+    } //end reportProgress
+
+    /**
+     * Decides whether the search cannot reach the incumbent. One round applies only
+     * one move, so a search that is still descending is not held to the final cost of
+     * one that has converged. Its descent is projected instead: the ratio of its cost
+     * to the cost before the last round is applied again for every round the incumbent
+     * ran beyond the rounds run so far, and at least once. The search is behind when
+     * the projected cost, less the smallest improvement the epsilon rule accepts, is
+     * still no lower than the final cost of the incumbent. A round that did not
+     * improve projects no descent at all.
+     * @param k the number of labels
+     * @return true if the search should be abandoned
+     */
+    private boolean behindIncumbent(int k) {
+
+        double[] costs = incumbent == null ? null : incumbent.get();
+
+        if (costs == null) {
+
+            return false;
+
+        } //end if
+
+        int rounds = costTrace.size() - 1;
+        double cost = costTrace.getLast().value;
+        double ratio = cost / costTrace.get(rounds - 1).value;
+        double projected = cost * Math.pow(Math.min(ratio, 1.0), Math.max(1, costs.length - 1 - rounds));
+
+        return projected * (1 - epsilon / Math.pow(k, 2)) >= costs[costs.length - 1];
+
+    } //end behindIncumbent
+
+    /**
+     * Brings the shape of an expansion network up to date after some vertices of the
+     * labelled network changed label. Only the edges at those vertices can gain or
+     * lose an auxiliary vertex, so the rest of the network is left alone. The
+     * capacities are left for expansionCapacities to rewrite.
+     * @param relabel the expansion network
+     * @param flowNetwork the labelled flow network
+     * @param moved the ids of the vertices whose label changed
+     */
+    public void updateExpansionNetwork(FlowNetwork relabel, FlowNetwork flowNetwork, LinkedList<Integer> moved) {
+
+        Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
+
+        for (int id : moved) {
+
+            relabel.setLocalSearchLabel(id, vertices.get(id).getLocalSearchLabel());
+
+        } //end for
+
+        for (int id : moved) {
+
+            for (FlowEdge edge : vertices.get(id).getAllEdges()) {
+
+                updateExpansionEdge(relabel, edge);
+
+            } //end for
+
+            for (FlowEdge edge : vertices.get(id).getAllResEdges()) {
+
+                updateExpansionEdge(relabel, edge);
+
+            } //end for
+
+        } //end for
+
+    } //end updateExpansionNetwork
+
+    /**
+     * Splits an edge of the labelled network by an auxiliary vertex if its endpoints
+     * now have different labels, or joins it again if they now have the same label.
+     * @param relabel the expansion network
+     * @param edge an edge of the labelled network
+     */
+    private void updateExpansionEdge(FlowNetwork relabel, FlowEdge edge) {
+
+        Map<Integer, FlowVertex> vertices = relabel.getVertices();
+
+        FlowVertex start = vertices.get(edge.getStartVertex().id());
+        FlowVertex end = vertices.get(edge.getEndVertex().id());
+        FlowVertex auxiliary = auxiliaryVertex(start, end);
+
+        // The endpoints were split and now have the same label
+        if (start.getLocalSearchLabel() == end.getLocalSearchLabel() && auxiliary != null) {
+
+            relabel.removeVertex(auxiliary.id());
+            relabel.addEdge(start.id(), end.id(), edge.getCapacity());
+
+        } //end if
+
+        // The endpoints were joined and now have different labels
+        else if (start.getLocalSearchLabel() != end.getLocalSearchLabel() && auxiliary == null) {
+
+            int auxiliaryId = relabel.getMaxVertexId() + 1;
+
+            relabel.removeEdge(start.id(), end.id());
+            relabel.addVertex(auxiliaryId);
+            relabel.setLocalSearchLabel(auxiliaryId, -1);
+            relabel.addEdge(start.id(), auxiliaryId, edge.getCapacity());
+            relabel.addEdge(auxiliaryId, end.id(), edge.getCapacity());
+            relabel.addEdge(auxiliaryId, relabel.getSink(), edge.getCapacity());
+
+        } //end else if
+
+    } //end updateExpansionEdge
+
+    /**
+     * Finds the auxiliary vertex that splits the edge between two original vertices.
+     * @param start the start vertex of the edge in the expansion network
+     * @param end the end vertex of the edge in the expansion network
+     * @return the auxiliary vertex, or null if the edge is not split
+     */
+    private FlowVertex auxiliaryVertex(FlowVertex start, FlowVertex end) {
+
+        for (FlowEdge edge : start.getAllEdges()) {
+
+            FlowVertex auxiliary = edge.getEndVertex();
+
+            if (auxiliary.getLocalSearchLabel() == -1 && auxiliary.containsEdge(end)) {
+
+                return auxiliary;
+
+            } //end if
+
+        } //end for
+
+        return null;
+
+    } //end auxiliaryVertex
+
+    /**
+     * Returns the capacity of the edge an auxiliary vertex splits, which is the
+     * capacity of its edge to the sink.
+     * @param relabel the expansion network
+     * @param auxiliary the auxiliary vertex
+     * @return the capacity of the split edge
+     */
+    private double auxiliaryCapacity(FlowNetwork relabel, FlowVertex auxiliary) {
+
+        for (FlowEdge edge : auxiliary.getAllEdges()) {
+
+            if (edge.getEndVertex().id() == relabel.getSink()) {
+
+                return edge.getCapacity();
 
             } //end if
 
         } //end for
 
+        return 0;
+
+    } //end auxiliaryCapacity
+
+    /**
+     * Computes the best expansion of a label on the shared expansion network of the
+     * current labelling. The flow of the previous label is reused as a starting point.
+     * @param relabel the expansion network
+     * @param terminals the terminal vertices
+     * @param i the label being expanded
+     * @return the ids of the vertices the expansion gives label i
+     */
+    private LinkedList<Integer> computeMinimumCostRelabel(FlowNetwork relabel,
+                                                          LinkedList<Integer> terminals,
+                                                          int i) {
+
+        expansionCapacities(relabel, terminals, i);
+
+        MinCut minCut = relabel.resumeMinimumCut(relabel.getSource(), relabel.getSink(), maxFlowEngine);
+
+        return expansionMove(relabel, minCut, terminals, i);
+
+    } //end computeMinimumCostRelabel
+
+    /**
+     * Reads the vertices an expansion relabels off the minimum cut of the expansion
+     * network.
+     * @param relabel the expansion network
+     * @param minCut the minimum cut of the expansion network for label i
+     * @param terminals the terminal vertices
+     * @param i the label being expanded
+     * @return the ids of the vertices the expansion gives label i
+     */
+    private LinkedList<Integer> expansionMove(FlowNetwork relabel, MinCut minCut, LinkedList<Integer> terminals, int i) {
+
+        LinkedList<Integer> relabelledVertices = new LinkedList<>();
+
         for (Map.Entry<Integer, FlowVertex> entry : relabel.getVertices().entrySet()) {
 
-            if (entry.getValue().getLocalSearchLabel() >= 0) {
+            FlowVertex vertex = entry.getValue();
+
+            // A vertex whose edge to the source is in the cut is relabelled, unless it is a terminal
+            if (vertex.getLocalSearchLabel() >= 0 && vertex.getLocalSearchLabel() != i
+                    && !minCut.isSourceSide(vertex.id()) && !terminals.contains(vertex.id())) {
 
-                relabelledVertices.put(entry.getValue().id(), entry.getValue().getLocalSearchLabel());
+                relabelledVertices.add(vertex.id());
 
             } //end if
 
@@ -204,7 +536,90 @@ public class LocalSearch implements MultiwayCutStrategy {
 
         return relabelledVertices;
 
-    } //end computeMinimumCostRelabel
+    } //end expansionMove
+
+    /**
+     * Computes the best expansion of every label at once, one task per label. The
+     * expansion network is frozen and only read; each task cuts it under its own
+     * capacities with its own copy of the engine.
+     * @param relabel the expansion network
+     * @param terminals the terminal vertices
+     * @param dirty whether each label is to be expanded
+     * @return the ids of the vertices each expansion relabels, indexed by label, or
+     * null for a label left alone
+     */
+    private LinkedList<LinkedList<Integer>> parallelExpansions(FlowNetwork relabel, LinkedList<Integer> terminals, boolean[] dirty) {
+
+        CompactGraph compact = relabel.freeze();
+        LinkedList<Callable<LinkedList<Integer>>> tasks = new LinkedList<>();
+        LinkedList<LinkedList<Integer>> moves = new LinkedList<>();
+
+        int source = compact.index(relabel.getSource());
+        int sink = compact.index(relabel.getSink());
+
+        for (int i = 0; i < dirty.length; i++) {
+
+            if (!dirty[i]) {
+
+                continue;
+
+            } //end if
+
+            final int label = i;
+            final MaxFlowEngine engine = maxFlowEngine.copy();
+
+            tasks.add(() -> {
+
+                double[] capacities = new double[compact.getNumEdges()];
+
+                for (int e = 0; e < capacities.length; e++) {
+
+                    capacities[e] = expansionCapacity(relabel, compact.getEdge(e), terminals, label);
+
+                } //end for
+
+                MinCut minCut = engine.minimumCut(new CapacityView(compact, capacities), source, sink);
+                return expansionMove(relabel, minCut, terminals, label);
+
+            });
+
+        } //end for
+
+        try {
+
+            List<Future<LinkedList<Integer>>> futures = pool.invokeAll(tasks);
+            int next = 0;
+
+            for (int i = 0; i < dirty.length; i++) {
+
+                moves.add(dirty[i] ? futures.get(next++).get() : null);
+
+            } //end for
+
+        } //end try
+
+        catch (ExecutionException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+
+                throw (RuntimeException) e.getCause();
+
+            } //end if
+
+            throw new IllegalStateException("An expansion failed", e.getCause());
+
+        } //end catch
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the expansions", e);
+
+        } //end catch
+
+        return moves;
+
+    } //end parallelExpansions
 
     /**
      * Computes a minimum cut from each terminal vertex to the sink.
@@ -228,6 +643,155 @@ public class LocalSearch implements MultiwayCutStrategy {
 
     } //end outputMultiwayCut
 
+    /**
+     * Chooses the maximum flow engine used on the expansion networks, for example
+     * PushRelabel, BoykovKolmogorov or Dinic.
+     * @param maxFlowEngine the maximum flow engine
+     */
+    @Override
+    public void setMaxFlowEngine(MaxFlowEngine maxFlowEngine) {
+
+        this.maxFlowEngine = maxFlowEngine;
+
+    } //end setMaxFlowEngine
+
+    /**
+     * Sets the number of threads the expansions of a round run on. With one thread they
+     * run one after another on the configured engine, reusing its flow from label to
+     * label, otherwise every expansion gets a copy of it.
+     * @param threads the number of threads
+     */
+    @Override
+    public void setThreads(int threads) {
+
+        if (threads < 1) {
+
+            throw new IllegalArgumentException("Choose at least one thread");
+
+        } //end if
+
+        this.threads = threads;
+
+    } //end setThreads
+
+    /**
+     * Chooses the moves local search makes: EXPANSION expands one label over the
+     * whole graph, SWAP exchanges two labels among the vertices that have them, and
+     * HYBRID swaps until the swaps stall, then tries an expansion before it stops.
+     * @param neighbourhood the name of the moves
+     */
+    @Override
+    public void setNeighbourhood(String neighbourhood) {
+
+        this.neighbourhood = parseNeighbourhood(neighbourhood);
+
+    } //end setNeighbourhood
+
+    /**
+     * Checks the name of a neighbourhood of local search.
+     * @param neighbourhood the name of the moves
+     * @return the name, which is EXPANSION, SWAP or HYBRID
+     */
+    static String parseNeighbourhood(String neighbourhood) {
+
+        switch (neighbourhood) {
+
+            case EXPANSION:
+            case SWAP:
+            case HYBRID:
+
+                return neighbourhood;
+
+            default:
+
+                throw new IllegalArgumentException("Unrecognized neighbourhood");
+
+        } //end switch
+
+    } //end parseNeighbourhood
+
+    /**
+     * Limits how long computeMultiwayCut runs. The search stops before the next move
+     * once the time is up and keeps the labelling it has.
+     * @param milliseconds the time allowed, or 0 for no limit
+     */
+    @Override
+    public void setTimeBudget(long milliseconds) {
+
+        if (milliseconds < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative time budget");
+
+        } //end if
+
+        this.timeBudget = milliseconds;
+
+    } //end setTimeBudget
+
+    /**
+     * Limits how many expansions or swaps computeMultiwayCut tries.
+     * @param iterations the number of moves allowed, or 0 for no limit
+     */
+    @Override
+    public void setIterationBudget(long iterations) {
+
+        if (iterations < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative iteration budget");
+
+        } //end if
+
+        this.iterationBudget = iterations;
+
+    } //end setIterationBudget
+
+    /**
+     * Chooses the listener told the cost of the initial labelling and then the cost
+     * after every round that lowers it.
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+
+        this.progressListener = listener;
+
+    } //end setProgressListener
+
+    /**
+     * Gives the search the costs of the best search finished elsewhere, for example by
+     * another start of a multi-start search. See behindIncumbent for when the search
+     * gives up.
+     * @param incumbent the cost after every round of the incumbent, starting with its
+     * initial labelling, or null while there is none; read after every round
+     */
+    public void setIncumbent(Supplier<double[]> incumbent) {
+
+        this.incumbent = incumbent;
+
+    } //end setIncumbent
+
+    /**
+     * Returns whether the last run was abandoned because it could not beat the
+     * incumbent.
+     * @return true if the run was abandoned
+     */
+    public boolean isAbandoned() {
+
+        return abandoned;
+
+    } //end isAbandoned
+
+    /**
+     * Returns the cost of the labelling after every round of the last run, with the
+     * milliseconds since the run started as the index and the cost as the value.
+     * @return the cost after every round, starting with the initial labelling
+     */
+    public LinkedList<Pair> getCostTrace() {
+
+        return costTrace;
+
+    } //end getCostTrace
+
     @Override
     public void setEpsilon(double epsilon){
 
@@ -270,72 +834,149 @@ public class LocalSearch implements MultiwayCutStrategy {
 
         LocalSearchLabeller labeller = new LocalSearchLabeller(flowNetwork, initialLabeller, ih);
 
-        Map<Integer, Integer> labelling;
-        Map<Integer, Integer> newLabelling;
-        Map<Integer, Integer> bestLabelling;
+        // The vertices relabelled since the expansion network last followed the labelling
+        LinkedList<Integer> pending = new LinkedList<>();
 
         LinkedList<FlowEdge> multiwayCut;
 
+        FlowNetwork relabel = null;
+
+        // The labels whose expansion may have changed since it was last computed
+        boolean[] dirty = new boolean[flowNetwork.getK()];
+        Arrays.fill(dirty, true);
+
+        boolean expand = neighbourhood.equals(EXPANSION);
+        boolean fullRound = true;
+
         double labelCost;
-        double newLabelCost;
         double bestLabelCost;
 
         long start = System.nanoTime();
 
-        labelling = labeller.initialLocalSearchLabel();
+        labeller.initialLocalSearchLabel();
         labelCost = labeller.localSearchLabelCost();
         //flowNetwork.test();
 
+        abandoned = false;
+        deadline = timeBudget > 0 ? start + timeBudget * 1000000 : Long.MAX_VALUE;
+        iterationLimit = iterationBudget > 0 ? iterations + iterationBudget : Long.MAX_VALUE;
+
+        costTrace = new LinkedList<>();
+        reportProgress(0.0, labelCost);
+
         StdOut.println("Local Search (epsilon: " + String.format("%.3f", (1 - epsilon / Math.pow(flowNetwork.getK(), 2))) + ")");
         //StdOut.println("The initial min cut cost is: " + labelCost);
 
-        // Loop until no significant improved solutions are found
-        while (true) {
+        // One pool serves the expansions of every round of the run
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
 
-            bestLabelCost = labelCost;
-            bestLabelling = labelling;
-            //StdOut.println("Starting a new round. Best Cost: " + bestLabelCost + ", Label Cost: " + labelCost);
+        try {
 
-            // Do a relabel operation for each label
-            for (int i = 0; i < flowNetwork.getK(); i++) {
+            // Loop until no significant improved solutions are found
+            while (true) {
 
-                iterations++;
+                bestLabelCost = labelCost;
+                //StdOut.println("Starting a new round. Best Cost: " + bestLabelCost + ", Label Cost: " + labelCost);
+
+                if (expand) {
 
-                newLabelling = computeMinimumCostRelabel(flowNetwork, flowNetwork.getTerminals(), i);
-                labeller.relabel(newLabelling);
-                newLabelCost = labeller.localSearchLabelCost();
-                //StdOut.println("Starting expansion on label " + i + ". Best cost: " + bestLabelCost + ", New cost: " + newLabelCost);
-                //StdOut.println("Min cut weight: " + newLabelCost);
+                    // The expansion network is built once and follows the labelling from round to round
+                    if (relabel == null) {
 
-                labeller.relabel(bestLabelling);
+                        relabel = expansionNetwork(flowNetwork, flowNetwork.getTerminals(), 0);
 
-                // The new labelling is better than the labellings in this iteration
-                if (newLabelCost < labelCost) {
+                    } //end if
+
+                    else if (!pending.isEmpty()) {
 
-                    //StdOut.println("Label Cost: " + labelCost + ", NewLabelCost: " + newLabelCost);
-                    labelling = newLabelling;
-                    labelCost = newLabelCost;
+                        updateExpansionNetwork(relabel, flowNetwork, pending);
+                        pending.clear();
+
+                    } //end else if
+
+                    fullRound = allDirty(dirty);
+                    pending.addAll(expansionRound(labeller, relabel, flowNetwork, dirty));
 
                 } //end if
 
-            } //end for
+                else {
 
-            //StdOut.println("Cost to beat: " + (1 - (1.0/epsilon) / Math.pow(flowNetwork.getK(), 2)) * bestLabelCost);
-            //StdOut.println("Percent: " + (1 - (1.0/epsilon) / Math.pow(flowNetwork.getK(), 2)));
-            if (labelCost >= (1 - epsilon / Math.pow(flowNetwork.getK(), 2)) * bestLabelCost) {
+                    LinkedList<Integer> swapped = swapRound(labeller, flowNetwork);
 
-                bestLabelling = labelling;
-                bestLabelCost = labelCost;
-                labeller.relabel(bestLabelling);
-                break;
+                    if (neighbourhood.equals(HYBRID)) {
 
-            } //end if
+                        pending.addAll(swapped);
+
+                        // Swaps move vertices between any two labels, so every label is expanded afterwards
+                        if (!swapped.isEmpty()) {
+
+                            Arrays.fill(dirty, true);
+
+                        } //end if
+
+                    } //end if
+
+                } //end else
+
+                labelCost = labeller.getLabelCost();
+                reportProgress((System.nanoTime() - start) / 1e6, labelCost);
+
+                if (outOfBudget()) {
+
+                    bestLabelCost = labelCost;
+                    break;
+
+                } //end if
 
-            bestLabelling = labelling;
-            bestLabelCost = labelCost;
-            labeller.relabel(bestLabelling);
+                // Give up on a labelling whose descent cannot catch the incumbent, even allowing for epsilon
+                if (behindIncumbent(flowNetwork.getK())) {
 
-        } //end while
+                    abandoned = true;
+                    bestLabelCost = labelCost;
+                    break;
+
+                } //end if
+
+                //StdOut.println("Cost to beat: " + (1 - (1.0/epsilon) / Math.pow(flowNetwork.getK(), 2)) * bestLabelCost);
+                //StdOut.println("Percent: " + (1 - (1.0/epsilon) / Math.pow(flowNetwork.getK(), 2)));
+                boolean stalled = labelCost >= (1 - epsilon / Math.pow(flowNetwork.getK(), 2)) * bestLabelCost;
+
+                // A stalled round that skipped clean labels is confirmed by a round over every label
+                if (stalled && expand && !fullRound) {
+
+                    Arrays.fill(dirty, true);
+                    continue;
+
+                } //end if
+
+                // The hybrid falls back on an expansion when the swaps stall, and stops when that stalls too
+                if (stalled && (expand || !neighbourhood.equals(HYBRID))) {
+
+                    bestLabelCost = labelCost;
+                    break;
+
+                } //end if
+
+                if (neighbourhood.equals(HYBRID)) {
+
+                    expand = stalled;
+
+                } //end if
+
+            } //end while
+
+        } //end try
+
+        finally {
+
+            if (pool != null) {
+
+                pool.shutdown();
+                pool = null;
+
+            } //end if
+
+        } //end finally
 
         multiwayCut = labeller.localSearchMinCut();
         outputMultiwayCut(multiwayCut);
@@ -346,4 +987,291 @@ public class LocalSearch implements MultiwayCutStrategy {
 
     } //end computeMultiwayCut
 
+    /**
+     * Expands every dirty label against the current labelling and applies the
+     * expansion that lowers the cost the most. The dirty flags are then set for the
+     * next round.
+     * @param labeller the labeller of the flow network
+     * @param relabel the expansion network of the current labelling
+     * @param flowNetwork the labelled flow network
+     * @param dirty whether each label is to be expanded, updated for the next round
+     * @return the ids of the vertices that were relabelled
+     */
+    private LinkedList<Integer> expansionRound(LocalSearchLabeller labeller, FlowNetwork relabel, FlowNetwork flowNetwork,
+                                               boolean[] dirty) {
+
+        LinkedList<LinkedList<Integer>> moves = null;
+        LinkedList<Integer> newMove;
+        LinkedList<Integer> bestMove = new LinkedList<>();
+
+        int bestLabel = -1;
+
+        double labelCost = labeller.getLabelCost();
+        double newLabelCost;
+
+        if (pool != null && !outOfBudget()) {
+
+            moves = parallelExpansions(relabel, flowNetwork.getTerminals(), dirty);
+
+        } //end if
+
+        // Do a relabel operation for each label
+        for (int i = 0; i < flowNetwork.getK(); i++) {
+
+            if (!dirty[i]) {
+
+                continue;
+
+            } //end if
+
+            if (moves == null && outOfBudget()) {
+
+                break;
+
+            } //end if
+
+            iterations++;
+
+            if (moves != null) {
+
+                newMove = moves.get(i);
+
+            } //end if
+
+            else {
+
+                newMove = computeMinimumCostRelabel(relabel, flowNetwork.getTerminals(), i);
+
+            } //end else
+
+            // Try the expansion, then take it back so the next one starts from the same labelling
+            int mark = labeller.mark();
+
+            for (int id : newMove) {
+
+                labeller.setLabel(id, i);
+
+            } //end for
+
+            newLabelCost = labeller.getLabelCost();
+            labeller.undo(mark);
+
+            // An expansion that improves stays dirty, as it still will if the move applied leaves it alone
+            dirty[i] = newLabelCost < labeller.getLabelCost();
+            //StdOut.println("Starting expansion on label " + i + ". Best cost: " + bestLabelCost + ", New cost: " + newLabelCost);
+            //StdOut.println("Min cut weight: " + newLabelCost);
+
+            // The new labelling is better than the labellings in this iteration
+            if (newLabelCost < labelCost) {
+
+                //StdOut.println("Label Cost: " + labelCost + ", NewLabelCost: " + newLabelCost);
+                bestMove = newMove;
+                bestLabel = i;
+                labelCost = newLabelCost;
+
+            } //end if
+
+        } //end for
+
+        // Mark the labels the moved vertices and their neighbours hold before the move
+        markDirty(flowNetwork, bestMove, dirty);
+
+        // Apply the best expansion of the round, if any improved the labelling
+        for (int id : bestMove) {
+
+            labeller.setLabel(id, bestLabel);
+
+        } //end for
+
+        // Mark the label the moved vertices hold after the move, which the first call could not see
+        markDirty(flowNetwork, bestMove, dirty);
+
+        labeller.commit();
+
+        return bestMove;
+
+    } //end expansionRound
+
+    /**
+     * Marks dirty the labels of some vertices and of their neighbours.
+     * @param flowNetwork the labelled flow network
+     * @param ids the ids of the vertices
+     * @param dirty whether each label is to be expanded
+     */
+    private void markDirty(FlowNetwork flowNetwork, LinkedList<Integer> ids, boolean[] dirty) {
+
+        Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
+
+        for (int id : ids) {
+
+            FlowVertex vertex = vertices.get(id);
+            dirty[vertex.getLocalSearchLabel()] = true;
+
+            for (FlowEdge edge : vertex.getAllEdges()) {
+
+                dirty[edge.getEndVertex().getLocalSearchLabel()] = true;
+
+            } //end for
+
+            for (FlowEdge edge : vertex.getAllResEdges()) {
+
+                dirty[edge.getStartVertex().getLocalSearchLabel()] = true;
+
+            } //end for
+
+        } //end for
+
+    } //end markDirty
+
+    /**
+     * Checks whether a round expands every label.
+     * @param dirty whether each label is to be expanded
+     * @return true if every label is dirty
+     */
+    private boolean allDirty(boolean[] dirty) {
+
+        for (boolean label : dirty) {
+
+            if (!label) {
+
+                return false;
+
+            } //end if
+
+        } //end for
+
+        return true;
+
+    } //end allDirty
+
+    /**
+     * Swaps every pair of labels in turn. A swap lets the vertices labelled alpha or
+     * beta take either label, and is kept if it lowers the cost. Every swap network is
+     * a contracted view of the frozen flow network, so setting one up only reads the
+     * rows of the vertices labelled alpha or beta.
+     * @param labeller the labeller of the flow network
+     * @param flowNetwork the labelled flow network
+     * @return the ids of the vertices that were relabelled
+     */
+    private LinkedList<Integer> swapRound(LocalSearchLabeller labeller, FlowNetwork flowNetwork) {
+
+        CompactGraph compact = flowNetwork.freeze();
+        LinkedList<Integer> moved = new LinkedList<>();
+
+        int k = flowNetwork.getK();
+        int n = compact.getNumVertices();
+
+        BitSet[] members = new BitSet[k];
+        BitSet terminals = new BitSet(n);
+
+        for (int i = 0; i < k; i++) {
+
+            members[i] = new BitSet(n);
+
+        } //end for
+
+        for (int v = 0; v < n; v++) {
+
+            members[compact.getVertex(v).getLocalSearchLabel()].set(v);
+
+        } //end for
+
+        for (int id : flowNetwork.getTerminals()) {
+
+            terminals.set(compact.index(id));
+
+        } //end for
+
+        for (int alpha = 0; alpha < k; alpha++) {
+
+            for (int beta = alpha + 1; beta < k; beta++) {
+
+                if (outOfBudget()) {
+
+                    return moved;
+
+                } //end if
+
+                iterations++;
+
+                ContractedGraph swap = swapNetwork(compact, members[alpha], members[beta], terminals);
+                MinCut minCut = maxFlowEngine.minimumCut(swap, swap.getSource(), swap.getSink());
+
+                LinkedList<Integer> changed = new LinkedList<>();
+                double labelCost = labeller.getLabelCost();
+                int mark = labeller.mark();
+
+                // The source side takes label alpha and the sink side label beta
+                for (int w = 0; w < swap.getSource(); w++) {
+
+                    int v = swap.baseIndex(w);
+                    int label = minCut.getSourceSide().get(w) ? alpha : beta;
+
+                    if (compact.getVertex(v).getLocalSearchLabel() != label) {
+
+                        labeller.setLabel(compact.id(v), label);
+                        changed.add(compact.id(v));
+
+                    } //end if
+
+                } //end for
+
+                if (labeller.getLabelCost() < labelCost) {
+
+                    labeller.commit();
+                    moved.addAll(changed);
+
+                    for (int id : changed) {
+
+                        int v = compact.index(id);
+
+                        members[alpha].flip(v);
+                        members[beta].flip(v);
+
+                    } //end for
+
+                } //end if
+
+                else {
+
+                    labeller.undo(mark);
+
+                } //end else
+
+            } //end for
+
+        } //end for
+
+        return moved;
+
+    } //end swapRound
+
+    /**
+     * Builds the network whose minimum cut gives the best swap of two labels, as a
+     * contracted view of the frozen flow network. It keeps only the vertices labelled
+     * alpha or beta and the edges between them. Edges to vertices with any other label
+     * are cut whichever of the two labels a vertex takes, so they are left out. The
+     * terminals labelled alpha are merged into the source and the terminals labelled
+     * beta into the sink.
+     * @param compact the frozen form of the labelled flow network
+     * @param alphaMembers the indices of the vertices labelled alpha
+     * @param betaMembers the indices of the vertices labelled beta
+     * @param terminals the indices of the terminal vertices
+     * @return the swap network
+     */
+    public ContractedGraph swapNetwork(CompactGraph compact, BitSet alphaMembers, BitSet betaMembers, BitSet terminals) {
+
+        BitSet kept = (BitSet) alphaMembers.clone();
+        BitSet sourceSet = (BitSet) alphaMembers.clone();
+        BitSet sinkSet = (BitSet) betaMembers.clone();
+
+        kept.or(betaMembers);
+        kept.andNot(terminals);
+        sourceSet.and(terminals);
+        sinkSet.and(terminals);
+
+        return new ContractedGraph(compact, kept, sourceSet, sinkSet);
+
+    } //end swapNetwork
+
 } //end LocalSearch
@@ -1,5 +1,6 @@
 package algorithms;
 
+import datastructures.flownetwork.CompactGraph;
 import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
@@ -8,6 +9,7 @@ import utility.BreadthFirstSearch;
 import utility.DefaultReachability;
 import utility.MinCutReachability;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -15,9 +17,16 @@ import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-19.
+ *
+ * Once localSearchLabelCost has scanned the network, the labeller keeps the cost of
+ * the labelling up to date as vertices are relabelled through setLabel, from the
+ * edges of the relabelled vertex only. Every change is written to an undo log, so
+ * a move can be tried and taken back with mark and undo.
  */
 public class LocalSearchLabeller {
 
+    private static final int MIN_LOG = 16;
+
     private FlowNetwork flowNetwork;
 
     private MultiwayCutStrategy ih;
@@ -28,6 +37,15 @@ public class LocalSearchLabeller {
 
     private LinkedList<Integer> terminals;
 
+    private CompactGraph graph;
+    private int[] labels;
+    private double cost;
+
+    private int[] undoVertex;
+    private int[] undoLabel;
+    private double[] undoCost;
+    private int undoSize;
+
     public LocalSearchLabeller(FlowNetwork flowNetwork, String initialLabeller, MultiwayCutStrategy ih) {
 
         this.flowNetwork = flowNetwork;
@@ -46,12 +64,135 @@ public class LocalSearchLabeller {
         for (Map.Entry<Integer, Integer> entry : labelling.entrySet()) {
 
             //StdOut.println("Vertex: " + entry.getKey() + ", Before: " + vertices.get(entry.getKey()).getLocalSearchLabel() + ", After: " + entry.getValue());
-            vertices.get(entry.getKey()).setLocalSearchLabel(entry.getValue());
+            setLabel(entry.getKey(), entry.getValue());
 
         } //end for
 
     } //end relabel
 
+    /**
+     * Changes the label of a vertex. Once the cost is tracked, the edges of the vertex
+     * move the cost and the old label goes on the undo log.
+     * @param id the id of the vertex
+     * @param label the new label
+     */
+    public void setLabel(int id, int label) {
+
+        vertices.get(id).setLocalSearchLabel(label);
+
+        if (labels == null) {
+
+            return;
+
+        } //end if
+
+        int v = graph.index(id);
+        int old = labels[v];
+
+        if (old == label) {
+
+            return;
+
+        } //end if
+
+        if (undoSize == undoVertex.length) {
+
+            undoVertex = Arrays.copyOf(undoVertex, 2 * undoSize);
+            undoLabel = Arrays.copyOf(undoLabel, 2 * undoSize);
+            undoCost = Arrays.copyOf(undoCost, 2 * undoSize);
+
+        } //end if
+
+        undoVertex[undoSize] = v;
+        undoLabel[undoSize] = old;
+        undoCost[undoSize] = cost;
+        undoSize++;
+
+        // An edge leaves the cut if its other end has the new label and joins it if it had the old one
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            // A self loop is never cut, and both of its arcs are in this row
+            if (graph.arcHead(a) == v) {
+
+                continue;
+
+            } //end if
+
+            int w = labels[graph.arcHead(a)];
+
+            if (w == label) {
+
+                cost -= graph.capacity(graph.arcEdge(a));
+
+            } //end if
+
+            else if (w == old) {
+
+                cost += graph.capacity(graph.arcEdge(a));
+
+            } //end else if
+
+        } //end for
+
+        labels[v] = label;
+
+    } //end setLabel
+
+    /**
+     * Returns a point in the undo log to go back to.
+     * @return the number of changes logged so far
+     */
+    public int mark() {
+
+        return undoSize;
+
+    } //end mark
+
+    /**
+     * Takes back every change made since a mark, restoring the labels and the cost.
+     * @param mark the point returned by mark
+     */
+    public void undo(int mark) {
+
+        if (undoSize > mark) {
+
+            cost = undoCost[mark];
+
+        } //end if
+
+        while (undoSize > mark) {
+
+            undoSize--;
+
+            int v = undoVertex[undoSize];
+
+            labels[v] = undoLabel[undoSize];
+            graph.getVertex(v).setLocalSearchLabel(labels[v]);
+
+        } //end while
+
+    } //end undo
+
+    /**
+     * Keeps every change made so far and empties the undo log.
+     */
+    public void commit() {
+
+        undoSize = 0;
+
+    } //end commit
+
+    /**
+     * Returns the cost of the current labelling, tracked since the last call to
+     * localSearchLabelCost.
+     * @return the weight of the edges whose endpoints have different labels
+     */
+    public double getLabelCost() {
+
+        return cost;
+
+    } //end getLabelCost
+
     public Map<Integer, Integer> initialLocalSearchLabel() {
 
         switch (initialLabeller) {
@@ -80,25 +221,28 @@ public class LocalSearchLabeller {
 
     } //end initialLocalSearchLabel
 
+    /**
+     * Computes the cost of the current labelling by scanning every edge, and tracks
+     * the cost from here on.
+     * @return the weight of the edges whose endpoints have different labels
+     */
     public double localSearchLabelCost() {
 
-        double cost = 0;
+        graph = flowNetwork.freeze();
+        labels = new int[graph.getNumVertices()];
 
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
+        for (int v = 0; v < graph.getNumVertices(); v++) {
 
-            for (FlowEdge edge : entry.getValue().getAllEdges()) {
-
-                if ((entry.getValue() == edge.getStartVertex()) && (edge.getStartVertex().getLocalSearchLabel() != edge.getEndVertex().getLocalSearchLabel())) {
-
-                    //StdOut.println(edge.edgeToString());
-                    cost += edge.getCapacity();
-
-                } //end if
-
-            } //end for
+            labels[v] = graph.getVertex(v).getLocalSearchLabel();
 
         } //end for
 
+        cost = graph.cutCost(labels);
+        undoVertex = new int[MIN_LOG];
+        undoLabel = new int[MIN_LOG];
+        undoCost = new double[MIN_LOG];
+        undoSize = 0;
+
         return cost;
 
     } //end localSearchLabelCost
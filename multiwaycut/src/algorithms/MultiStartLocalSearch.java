@@ -0,0 +1,363 @@
+package algorithms;
+
+import datastructures.flownetwork.FlowEdge;
+import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.FlowVertex;
+import datastructures.flownetwork.MaxFlowEngine;
+import datastructures.flownetwork.PushRelabel;
+import library.StdOut;
+import utility.Pair;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MultiStartLocalSearch.java
+ *
+ * Course: CS4490Z
+ *
+ * Runs local search from several random labellings at once on a fork-join pool and
+ * keeps the cheapest result. Every start works on its own copy of the flow network
+ * with its own copy of the engine. The costs of the best finished start after each
+ * of its rounds are shared as the incumbent. A start whose descent, carried on at the
+ * rate of its last round for as long as the incumbent ran, still cannot beat the
+ * incumbent is abandoned, so the time of the losing starts goes to the ones that can
+ * still win.
+ *
+ * The best labelling is written back onto the vertices of the flow network and can
+ * be read with getLabelling.
+ */
+public class MultiStartLocalSearch implements MultiwayCutStrategy {
+
+    private long time;
+    private double epsilon = 0.0;
+    private int starts = 4;
+    private int threads = 1;
+    private long timeBudget;
+    private long iterationBudget;
+    private String neighbourhood = "EXPANSION";
+    private MaxFlowEngine maxFlowEngine = new PushRelabel();
+    private ProgressListener progressListener;
+    private Map<Integer, Integer> labelling;
+
+    /**
+     * Runs one start and offers its costs as the incumbent.
+     * @param flowNetwork a copy of the flow network for this start alone
+     * @param incumbent the cost after every round of the best finished start
+     * @param start the value of System.nanoTime when the run started
+     * @return the labelling the start ended with, or null if it was abandoned
+     */
+    private Map<Integer, Integer> runStart(FlowNetwork flowNetwork, AtomicReference<double[]> incumbent, long start) {
+
+        LocalSearch localSearch = new LocalSearch();
+        localSearch.setInitialLabeller("RANDOM");
+        localSearch.setEpsilon(epsilon);
+        localSearch.setNeighbourhood(neighbourhood);
+        localSearch.setMaxFlowEngine(maxFlowEngine.copy());
+        localSearch.setTimeBudget(timeBudget);
+        localSearch.setIterationBudget(iterationBudget);
+        localSearch.setIncumbent(incumbent::get);
+
+        double cost = localSearch.computeMultiwayCut(flowNetwork);
+
+        if (localSearch.isAbandoned()) {
+
+            return null;
+
+        } //end if
+
+        double[] costs = new double[localSearch.getCostTrace().size()];
+        int r = 0;
+
+        for (Pair pair : localSearch.getCostTrace()) {
+
+            costs[r++] = pair.value;
+
+        } //end for
+
+        double[] current = incumbent.get();
+
+        // Replace the incumbent unless another start has already beaten this one
+        while (current == null || cost < current[current.length - 1]) {
+
+            if (incumbent.compareAndSet(current, costs)) {
+
+                if (progressListener != null) {
+
+                    progressListener.progress((System.nanoTime() - start) / 1e6, cost);
+
+                } //end if
+
+                break;
+
+            } //end if
+
+            current = incumbent.get();
+
+        } //end while
+
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+
+        for (Map.Entry<Integer, FlowVertex> entry : flowNetwork.getVertices().entrySet()) {
+
+            result.put(entry.getKey(), entry.getValue().getLocalSearchLabel());
+
+        } //end for
+
+        return result;
+
+    } //end runStart
+
+    /**
+     * Computes the weight of the edges whose endpoints have different labels.
+     * @param flowNetwork the flow network
+     * @param labels the label of every vertex
+     * @return the weight of the multiway cut
+     */
+    private double labellingCost(FlowNetwork flowNetwork, Map<Integer, Integer> labels) {
+
+        double cost = 0.0;
+
+        for (Map.Entry<Integer, FlowVertex> entry : flowNetwork.getVertices().entrySet()) {
+
+            for (FlowEdge edge : entry.getValue().getAllEdges()) {
+
+                if (!labels.get(edge.getStartVertex().id()).equals(labels.get(edge.getEndVertex().id()))) {
+
+                    cost += edge.getCapacity();
+
+                } //end if
+
+            } //end for
+
+        } //end for
+
+        return cost;
+
+    } //end labellingCost
+
+    /**
+     * Sets the number of random starts.
+     * @param starts the number of starts
+     */
+    public void setStarts(int starts) {
+
+        if (starts < 1) {
+
+            throw new IllegalArgumentException("Choose at least one start");
+
+        } //end if
+
+        this.starts = starts;
+
+    } //end setStarts
+
+    /**
+     * Sets the number of threads the starts run on.
+     * @param threads the number of threads
+     */
+    @Override
+    public void setThreads(int threads) {
+
+        if (threads < 1) {
+
+            throw new IllegalArgumentException("Choose at least one thread");
+
+        } //end if
+
+        this.threads = threads;
+
+    } //end setThreads
+
+    @Override
+    public void setEpsilon(double epsilon) {
+
+        this.epsilon = epsilon;
+
+    } //end setEpsilon
+
+    @Override
+    public double getEpsilon() {
+
+        return this.epsilon;
+
+    } //end getEpsilon
+
+    @Override
+    public void setNeighbourhood(String neighbourhood) {
+
+        this.neighbourhood = LocalSearch.parseNeighbourhood(neighbourhood);
+
+    } //end setNeighbourhood
+
+    @Override
+    public void setMaxFlowEngine(MaxFlowEngine maxFlowEngine) {
+
+        this.maxFlowEngine = maxFlowEngine;
+
+    } //end setMaxFlowEngine
+
+    /**
+     * Limits how long every start runs.
+     * @param milliseconds the time allowed, or 0 for no limit
+     */
+    @Override
+    public void setTimeBudget(long milliseconds) {
+
+        if (milliseconds < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative time budget");
+
+        } //end if
+
+        this.timeBudget = milliseconds;
+
+    } //end setTimeBudget
+
+    /**
+     * Limits how many moves every start makes.
+     * @param iterations the number of moves allowed, or 0 for no limit
+     */
+    @Override
+    public void setIterationBudget(long iterations) {
+
+        if (iterations < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative iteration budget");
+
+        } //end if
+
+        this.iterationBudget = iterations;
+
+    } //end setIterationBudget
+
+    /**
+     * Chooses the listener told each time a start lowers the incumbent. It is called
+     * from the threads of the pool.
+     * @param listener the listener, or null for none
+     */
+    @Override
+    public void setProgressListener(ProgressListener listener) {
+
+        this.progressListener = listener;
+
+    } //end setProgressListener
+
+    /**
+     * Returns the labelling of the best start of the last run.
+     * @return the label of every vertex, keyed by id
+     */
+    public Map<Integer, Integer> getLabelling() {
+
+        return labelling;
+
+    } //end getLabelling
+
+    public long getTime() {
+
+        return time;
+
+    } //end getTime
+
+    /**
+     * Computes a minimum multiway cut.
+     */
+    @Override
+    public double computeMultiwayCut(FlowNetwork flowNetwork) {
+
+        AtomicReference<double[]> incumbent = new AtomicReference<>();
+        LinkedList<Callable<Map<Integer, Integer>>> tasks = new LinkedList<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        StdOut.println("Multi-start Local Search (" + starts + " starts)");
+
+        long start = System.nanoTime();
+
+        for (int s = 0; s < starts; s++) {
+
+            final FlowNetwork copy = new FlowNetwork(flowNetwork);
+            tasks.add(() -> runStart(copy, incumbent, start));
+
+        } //end for
+
+        labelling = null;
+
+        try {
+
+            // Keep the first of the cheapest starts, in the order they were launched
+            for (Future<Map<Integer, Integer>> future : pool.invokeAll(tasks)) {
+
+                Map<Integer, Integer> result = future.get();
+
+                if (result != null) {
+
+                    double cost = labellingCost(flowNetwork, result);
+
+                    if (cost < bestCost) {
+
+                        bestCost = cost;
+                        labelling = result;
+
+                    } //end if
+
+                } //end if
+
+            } //end for
+
+        } //end try
+
+        catch (ExecutionException e) {
+
+            if (e.getCause() instanceof RuntimeException) {
+
+                throw (RuntimeException) e.getCause();
+
+            } //end if
+
+            throw new IllegalStateException("A local search start failed", e.getCause());
+
+        } //end catch
+
+        catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the local search starts", e);
+
+        } //end catch
+
+        finally {
+
+            pool.shutdown();
+
+        } //end finally
+
+        // The first start to finish always sets the incumbent, so it is never abandoned
+        if (labelling == null) {
+
+            throw new IllegalStateException("No local search start finished");
+
+        } //end if
+
+        for (Map.Entry<Integer, Integer> entry : labelling.entrySet()) {
+
+            flowNetwork.setLocalSearchLabel(entry.getKey(), entry.getValue());
+
+        } //end for
+
+        time = System.nanoTime() - start;
+
+        StdOut.println("Multi-start Local Search: The weight of the multiway cut: " + String.format("%.3f", bestCost));
+
+        return bestCost;
+
+    } //end computeMultiwayCut
+
+} //end MultiStartLocalSearch
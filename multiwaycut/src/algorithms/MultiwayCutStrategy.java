@@ -1,6 +1,8 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
+import datastructures.flownetwork.MaxFlowEngine;
 import java.util.Map;
 
 /**
@@ -36,6 +38,44 @@ public interface MultiwayCutStrategy {
 
     } //end setIsolationHeuristic
 
+    default void setNeighbourhood(String neighbourhood) {
+
+    } //end setNeighbourhood
+
+    default void setMaxFlowEngine(MaxFlowEngine engine) {
+
+    } //end setMaxFlowEngine
+
+    default void setThreads(int threads) {
+
+    } //end setThreads
+
+    /**
+     * Limits how long computeMultiwayCut runs. A strategy that honours the limit
+     * stops once it has run out and returns the best cut it has found by then.
+     * @param milliseconds the time allowed, or 0 for no limit
+     */
+    default void setTimeBudget(long milliseconds) {
+
+    } //end setTimeBudget
+
+    /**
+     * Limits how many moves computeMultiwayCut makes, for a strategy that improves a
+     * solution move by move.
+     * @param iterations the number of moves allowed, or 0 for no limit
+     */
+    default void setIterationBudget(long iterations) {
+
+    } //end setIterationBudget
+
+    /**
+     * Chooses the listener told the cost of the best solution each time it improves.
+     * @param listener the listener, or null for none
+     */
+    default void setProgressListener(ProgressListener listener) {
+
+    } //end setProgressListener
+
     default double getThreshold() {
 
         return 0.0;
@@ -54,7 +94,7 @@ public interface MultiwayCutStrategy {
 
     } //end getIsolationLabelling
 
-    default Map<Integer, double[]> getVertexLabels() {
+    default LabelMatrix getVertexLabels() {
 
         return null;
 
@@ -86,7 +126,7 @@ public interface MultiwayCutStrategy {
 
     Map<Integer, Integer> getIsolationHeuristicLabelling();
 
-    Map<Integer, double[]> getVertexLabels();
+    LabelMatrix getVertexLabels();
 
     boolean isFractional();*/
 
@@ -0,0 +1,22 @@
+package algorithms;
+
+/**
+ * ProgressListener.java
+ *
+ * Course: CS4490Z
+ *
+ * A ProgressListener is told the cost of the best solution a strategy holds each
+ * time it improves, so the quality of a run can be plotted against its time. The
+ * first solution is always reported, and after it only a cost strictly lower than
+ * the last one reported.
+ */
+public interface ProgressListener {
+
+    /**
+     * Reports the cost of the best solution found so far.
+     * @param milliseconds the time since the run started
+     * @param cost the cost of the best solution
+     */
+    void progress(double milliseconds, double cost);
+
+} //end ProgressListener
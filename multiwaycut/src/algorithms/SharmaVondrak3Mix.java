@@ -1,10 +1,10 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
 import library.StdRandom;
 import utility.MonteCarlo;
-import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-31.
@@ -27,7 +27,7 @@ public class SharmaVondrak3Mix implements MultiwayCutStrategy {
     } //end getTime
 
     private double round(FlowNetwork flowNetwork,
-                         Map<Integer, double[]> vertexLabels) {
+                         LabelMatrix vertexLabels) {
 
         double p1 = (6.0 + (5.0 * Math.pow(3.0, 1.0 / 2.0))) / 26.0;
         double p2 = (19.0 - (8.0 * Math.pow(3.0, 1.0 / 2.0))) / 13.0;
@@ -72,7 +72,7 @@ public class SharmaVondrak3Mix implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Sharma and Vondrak's 3 ingredient mixture");
         double cost = round(flowNetwork, vertexLabels);
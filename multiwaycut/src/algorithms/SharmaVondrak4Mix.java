@@ -1,10 +1,10 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
 import library.StdRandom;
 import utility.MonteCarlo;
-import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-31.
@@ -27,7 +27,7 @@ public class SharmaVondrak4Mix implements MultiwayCutStrategy {
     } //end getTime
 
     private double round(FlowNetwork flowNetwork,
-                         Map<Integer, double[]> vertexLabels) {
+                         LabelMatrix vertexLabels) {
 
         double p1 = 0.31052;
         double p2 = 0.305782;
@@ -77,7 +77,7 @@ public class SharmaVondrak4Mix implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Sharma and Vondrak's 4 ingredient mixture");
         double cost = round(flowNetwork, vertexLabels);
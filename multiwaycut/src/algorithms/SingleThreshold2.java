@@ -1,10 +1,10 @@
 package algorithms;
 
 import datastructures.flownetwork.FlowNetwork;
+import datastructures.flownetwork.LabelMatrix;
 import library.StdOut;
 import utility.MonteCarlo;
 import utility.Pair;
-import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-05-31.
@@ -44,7 +44,7 @@ public class SingleThreshold2 implements MultiwayCutStrategy {
     } //end getCalCost
 
     private double round(FlowNetwork flowNetwork,
-                         Map<Integer, double[]> vertexLabels) {
+                         LabelMatrix vertexLabels) {
 
         double rand = MonteCarlo.getPhi2();
         long start = System.nanoTime();
@@ -63,7 +63,7 @@ public class SingleThreshold2 implements MultiwayCutStrategy {
     @Override
     public double computeMultiwayCut(FlowNetwork flowNetwork) {
 
-        Map<Integer, double[]> vertexLabels = solver.getVertexLabels();
+        LabelMatrix vertexLabels = solver.getVertexLabels();
 
         StdOut.println("Sharma and Vondrak's single threshold 2");
         double cost = round(flowNetwork, vertexLabels);
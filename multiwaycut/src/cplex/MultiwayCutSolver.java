@@ -23,7 +23,6 @@ public class MultiwayCutSolver implements MultiwayCutStrategy {
                                     IloNumVar[] edgeLabelSums,
                                     FlowNetwork flowNetwork) throws IloException {
 
-        LinkedList<FlowEdge> edges = flowNetwork.getEdges();
         LinkedList<Integer> terminals = flowNetwork.getTerminals();
 
         int n = flowNetwork.getNumVertices();
@@ -77,7 +76,7 @@ public class MultiwayCutSolver implements MultiwayCutStrategy {
         // Add the label inequalities
         for (int i = 0; i < m; i++) {
 
-            FlowEdge edge = edges.get(i);
+            FlowEdge edge = flowNetwork.getEdge(i);
 
             // An edge's label for partition j must be greater or equal to the difference of its vertices
             for (int j = 0; j < k; j++) {
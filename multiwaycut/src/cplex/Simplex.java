@@ -4,6 +4,7 @@ import algorithms.MultiwayCutStrategy;
 import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
+import datastructures.flownetwork.LabelMatrix;
 import ilog.concert.*;
 import ilog.cplex.IloCplex;
 import library.StdOut;
@@ -12,7 +13,6 @@ import utility.ObjectCopy;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Created by Bloch-Hansen on 2017-05-14.
@@ -20,14 +20,13 @@ import java.util.stream.Collectors;
 public class Simplex implements MultiwayCutStrategy {
 
     private long time;
-    private Map<Integer, double[]> vertexLabels;
+    private LabelMatrix vertexLabels;
 
     private void populateByRowLinear(IloMPModeler model,
                                      IloNumVar[] edgeLabelSums,
                                      Map<Integer, IloNumVar[]> vertexLabels,
                                      FlowNetwork flowNetwork) throws IloException {
 
-        LinkedList<FlowEdge> edges = flowNetwork.getEdges();
         LinkedList<Integer> terminals = flowNetwork.getTerminals();
 
         int n = flowNetwork.getNumVertices();
@@ -69,7 +68,7 @@ public class Simplex implements MultiwayCutStrategy {
         // Define the distance metric
         for (int i = 0; i < m; i++) {
 
-            FlowEdge edge = edges.get(i);
+            FlowEdge edge = flowNetwork.getEdge(i);
             distances[i] = model.numExpr();
 
             for (int j = 0; j < k; j++) {
@@ -95,7 +94,7 @@ public class Simplex implements MultiwayCutStrategy {
 
         //StdOut.println("Cplex");
 
-        Map<Integer, double[]> verticesRelaxed = new LinkedHashMap<>();
+        LabelMatrix verticesRelaxed = new LabelMatrix(flowNetwork.getK(), flowNetwork.getNumVertices());
         double[] edgesRelaxed = new double[flowNetwork.getNumEdges()];
 
         // Try to optimize the model
@@ -133,16 +132,14 @@ public class Simplex implements MultiwayCutStrategy {
 
                 for (Map.Entry<Integer, FlowVertex> entry : flowNetwork.getVertices().entrySet()) {
 
-                    double[] vertexVector = new double[flowNetwork.getK()];
+                    int row = verticesRelaxed.addRow(entry.getKey());
 
                     for (int j = 0; j < flowNetwork.getK(); j++) {
 
-                        vertexVector[j] = cplex.getValue(vertexLabels.get(entry.getKey())[j]);
+                        verticesRelaxed.set(row, j, cplex.getValue(vertexLabels.get(entry.getKey())[j]));
 
                     } //end for
 
-                    verticesRelaxed.put(entry.getKey(), vertexVector);
-
                 } //end for
 
             } //end if
@@ -166,28 +163,30 @@ public class Simplex implements MultiwayCutStrategy {
 
     } //end getTime
 
+    /**
+     * Returns a copy of the labels of the last solution, so every rounding scheme can
+     * subdivide and round its own.
+     * @return the labels of the vertices
+     */
     @Override
-    public Map<Integer, double[]> getVertexLabels() {
+    public LabelMatrix getVertexLabels() {
 
-        //return ObjectCopy.copyMapIntDoubleArray(this.vertexLabels);
-        return this.vertexLabels.entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue()));
+        return new LabelMatrix(this.vertexLabels);
 
     } //end getVertexLabels
 
     @Override
     public boolean isFractional() {
 
-        for (Map.Entry<Integer, double[]> entry : vertexLabels.entrySet()) {
+        double[] labels = vertexLabels.getValues();
 
-            for (int i = 0; i < entry.getValue().length; i++) {
+        for (int i = 0; i < vertexLabels.getNumRows() * vertexLabels.getK(); i++) {
 
-                if (entry.getValue()[i] % 1 != 0) {
+            if (labels[i] % 1 != 0) {
 
-                    return true;
+                return true;
 
-                } //end if
-
-            } //end for
+            } //end if
 
         } //end for
 
@@ -0,0 +1,467 @@
+package datastructures.flownetwork;
+
+import java.util.BitSet;
+
+/**
+ * BoykovKolmogorov.java
+ *
+ * Course: CS4490Z
+ *
+ * The Boykov-Kolmogorov algorithm grows two search trees of residual arcs, one from
+ * the source and one from the sink. When the trees touch, flow is sent along the
+ * path joining them. Arcs that saturate cut vertices off from their tree, and these
+ * orphans look for a new parent in the same tree before they are freed. Because the
+ * trees are kept between augmentations, the algorithm is fast on graphs with short
+ * augmenting paths, like the expansion networks built by local search.
+ *
+ * Both trees are stored as a parent arc per vertex. The parent arc of a vertex is
+ * the arc in its own row that leads to its parent. Orphans are found again with
+ * the timestamp and distance marks of the original paper, so a vertex whose path
+ * to the root was checked in the current adoption phase is not walked again.
+ */
+public class BoykovKolmogorov implements MaxFlowEngine {
+
+    private static final int FREE = 0;
+    private static final int SOURCE = 1;
+    private static final int SINK = 2;
+
+    private static final int TERMINAL = -2;
+    private static final int ORPHAN = -3;
+
+    private ResidualNetwork residual;
+    private FlowGraph graph;
+    private int n;
+
+    private int[] tree;
+    private int[] parent;
+    private int[] timestamp;
+    private int[] dist;
+    private int time;
+
+    private int[] active;
+    private boolean[] isActive;
+    private int activeHead;
+    private int numActive;
+
+    private int[] orphans;
+    private int numOrphans;
+
+    private double flow;
+
+    /**
+     * Computes a maximum flow and the minimum cut whose source side is every vertex
+     * still reachable from the source in the residual network.
+     * @param graph the network to cut
+     * @param source the index of the source
+     * @param sink the index of the sink
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(FlowGraph graph, int source, int sink) {
+
+        resetFlow(graph);
+        initialize(source, sink);
+
+        while (numActive > 0) {
+
+            int p = removeActive();
+
+            // Freed vertices are left in the queue and skipped here
+            if (tree[p] == FREE) {
+
+                continue;
+
+            } //end if
+
+            int a = grow(p);
+
+            if (a >= 0) {
+
+                // The vertex may touch the other tree along more arcs
+                addActive(p);
+                time++;
+                augment(p, a);
+                adopt();
+
+            } //end if
+
+        } //end while
+
+        BitSet sourceSide = new BitSet(n);
+
+        for (int v = 0; v < n; v++) {
+
+            if (tree[v] == SOURCE) {
+
+                sourceSide.set(v);
+
+            } //end if
+
+        } //end for
+
+        return new MinCut(graph, sourceSide, flow);
+
+    } //end minimumCut
+
+    public MaxFlowEngine copy() {
+
+        return new BoykovKolmogorov();
+
+    } //end copy
+
+    public double getFlow() {
+
+        return flow;
+
+    } //end getFlow
+
+    /**
+     * Removes all flow from the network and sizes the arrays for a compact graph.
+     * The arrays are kept while the compact graph is the same.
+     * @param compact the network to cut
+     */
+    private void resetFlow(FlowGraph compact) {
+
+        if (residual == null || graph != compact) {
+
+            graph = compact;
+            n = compact.getNumVertices();
+            residual = new ResidualNetwork(compact);
+            tree = new int[n];
+            parent = new int[n];
+            timestamp = new int[n];
+            dist = new int[n];
+            active = new int[n];
+            isActive = new boolean[n];
+            orphans = new int[n];
+
+        } //end if
+
+        else {
+
+            residual.reset();
+
+        } //end else
+
+    } //end resetFlow
+
+    private void initialize(int source, int sink) {
+
+        for (int v = 0; v < n; v++) {
+
+            tree[v] = FREE;
+            parent[v] = -1;
+            timestamp[v] = 0;
+            dist[v] = 0;
+            isActive[v] = false;
+
+        } //end for
+
+        time = 0;
+        flow = 0.0;
+        activeHead = 0;
+        numActive = 0;
+        numOrphans = 0;
+
+        tree[source] = SOURCE;
+        parent[source] = TERMINAL;
+        tree[sink] = SINK;
+        parent[sink] = TERMINAL;
+
+        addActive(source);
+        addActive(sink);
+
+    } //end initialize
+
+    /**
+     * Returns the residual capacity of an arc in the direction the tree of its tail
+     * grows: away from the root in the source tree and towards it in the sink tree.
+     */
+    private double treeResidual(int a, int side) {
+
+        return side == SOURCE ? residual.residual(a) : residual.residual(graph.reverse(a));
+
+    } //end treeResidual
+
+    /**
+     * Grows the tree of an active vertex over its residual arcs.
+     * @param p the active vertex
+     * @return an arc of p that reaches the other tree, or -1 if there is none
+     */
+    private int grow(int p) {
+
+        for (int a = graph.firstArc(p); a < graph.lastArc(p); a++) {
+
+            if (treeResidual(a, tree[p]) > 0) {
+
+                int q = graph.arcHead(a);
+
+                if (tree[q] == FREE) {
+
+                    tree[q] = tree[p];
+                    parent[q] = graph.reverse(a);
+                    timestamp[q] = timestamp[p];
+                    dist[q] = dist[p] + 1;
+                    addActive(q);
+
+                } //end if
+
+                else if (tree[q] != tree[p]) {
+
+                    return a;
+
+                } //end else if
+
+                // Hang q closer to the root when p is a shorter way there
+                else if (timestamp[q] <= timestamp[p] && dist[q] > dist[p]) {
+
+                    parent[q] = graph.reverse(a);
+                    timestamp[q] = timestamp[p];
+                    dist[q] = dist[p] + 1;
+
+                } //end else if
+
+            } //end if
+
+        } //end for
+
+        return -1;
+
+    } //end grow
+
+    /**
+     * Sends the bottleneck capacity along the path from the source to the sink that
+     * runs through arc a, and turns every vertex whose parent arc saturates into an orphan.
+     * @param p the vertex that found the path
+     * @param a the arc of p that joins the two trees
+     */
+    private void augment(int p, int a) {
+
+        int middle = tree[p] == SOURCE ? a : graph.reverse(a);
+        int sourceEnd = tree[p] == SOURCE ? p : graph.arcHead(a);
+        int sinkEnd = tree[p] == SOURCE ? graph.arcHead(a) : p;
+
+        double delta = residual.residual(middle);
+
+        for (int v = sourceEnd; parent[v] != TERMINAL; v = graph.arcHead(parent[v])) {
+
+            delta = Math.min(delta, residual.residual(graph.reverse(parent[v])));
+
+        } //end for
+
+        for (int v = sinkEnd; parent[v] != TERMINAL; v = graph.arcHead(parent[v])) {
+
+            delta = Math.min(delta, residual.residual(parent[v]));
+
+        } //end for
+
+        residual.push(middle, delta);
+
+        int v = sourceEnd;
+
+        while (parent[v] != TERMINAL) {
+
+            int arc = parent[v];
+            int next = graph.arcHead(arc);
+
+            residual.push(graph.reverse(arc), delta);
+
+            if (residual.residual(graph.reverse(arc)) == 0) {
+
+                addOrphan(v);
+
+            } //end if
+
+            v = next;
+
+        } //end while
+
+        v = sinkEnd;
+
+        while (parent[v] != TERMINAL) {
+
+            int arc = parent[v];
+            int next = graph.arcHead(arc);
+
+            residual.push(arc, delta);
+
+            if (residual.residual(arc) == 0) {
+
+                addOrphan(v);
+
+            } //end if
+
+            v = next;
+
+        } //end while
+
+        flow += delta;
+
+    } //end augment
+
+    private void addOrphan(int v) {
+
+        parent[v] = ORPHAN;
+        orphans[numOrphans++] = v;
+
+    } //end addOrphan
+
+    /**
+     * Finds a new parent in the same tree for every orphan, or frees it.
+     */
+    private void adopt() {
+
+        while (numOrphans > 0) {
+
+            int v = orphans[--numOrphans];
+            int side = tree[v];
+            int bestArc = -1;
+            int bestDist = Integer.MAX_VALUE;
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int q = graph.arcHead(a);
+
+                // The arc from q to v in the source tree, or from v to q in the sink tree
+                if (tree[q] == side && treeResidual(graph.reverse(a), side) > 0) {
+
+                    int d = distanceToRoot(q);
+
+                    if (d < bestDist) {
+
+                        bestArc = a;
+                        bestDist = d;
+
+                    } //end if
+
+                } //end if
+
+            } //end for
+
+            if (bestArc >= 0) {
+
+                parent[v] = bestArc;
+                timestamp[v] = time;
+                dist[v] = bestDist + 1;
+
+            } //end if
+
+            else {
+
+                free(v, side);
+
+            } //end else
+
+        } //end while
+
+    } //end adopt
+
+    /**
+     * Walks from a vertex towards its root and marks the vertices on the way.
+     * @param q the vertex to start from
+     * @return the number of arcs to the root, or Integer.MAX_VALUE if the walk meets an orphan
+     */
+    private int distanceToRoot(int q) {
+
+        int d = 0;
+        int x = q;
+
+        while (true) {
+
+            if (timestamp[x] == time) {
+
+                d += dist[x];
+                break;
+
+            } //end if
+
+            if (parent[x] == TERMINAL) {
+
+                timestamp[x] = time;
+                dist[x] = 0;
+                break;
+
+            } //end if
+
+            if (parent[x] == ORPHAN) {
+
+                return Integer.MAX_VALUE;
+
+            } //end if
+
+            d++;
+            x = graph.arcHead(parent[x]);
+
+        } //end while
+
+        int marked = d;
+
+        for (x = q; timestamp[x] != time; x = graph.arcHead(parent[x])) {
+
+            timestamp[x] = time;
+            dist[x] = marked;
+            marked--;
+
+        } //end for
+
+        return d;
+
+    } //end distanceToRoot
+
+    /**
+     * Removes an orphan that found no parent from its tree. Its children become
+     * orphans, and its neighbours in the tree become active so they can grow over it.
+     */
+    private void free(int v, int side) {
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            int q = graph.arcHead(a);
+
+            if (tree[q] == side) {
+
+                if (treeResidual(graph.reverse(a), side) > 0) {
+
+                    addActive(q);
+
+                } //end if
+
+                if (parent[q] >= 0 && graph.arcHead(parent[q]) == v) {
+
+                    addOrphan(q);
+
+                } //end if
+
+            } //end if
+
+        } //end for
+
+        tree[v] = FREE;
+        parent[v] = -1;
+
+    } //end free
+
+    private void addActive(int v) {
+
+        if (!isActive[v]) {
+
+            isActive[v] = true;
+            active[(activeHead + numActive) % n] = v;
+            numActive++;
+
+        } //end if
+
+    } //end addActive
+
+    private int removeActive() {
+
+        int v = active[activeHead];
+
+        activeHead = (activeHead + 1) % n;
+        numActive--;
+        isActive[v] = false;
+
+        return v;
+
+    } //end removeActive
+
+} //end BoykovKolmogorov
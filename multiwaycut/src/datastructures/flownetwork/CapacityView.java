@@ -0,0 +1,138 @@
+package datastructures.flownetwork;
+
+/**
+ * CapacityView.java
+ *
+ * Course: CS4490Z
+ *
+ * A CapacityView is a FlowGraph with the vertices, arcs and edges of another graph
+ * and capacities of its own. The graph underneath is only read, so several threads
+ * can each cut the same network under different capacities at once, every one
+ * through its own view and its own engine.
+ */
+public class CapacityView implements FlowGraph {
+
+    private final FlowGraph graph;
+    private final double[] capacities;
+
+    /**
+     * Creates a view of a graph.
+     * @param graph the graph whose topology is shared
+     * @param capacities the capacity of each edge, indexed by edge
+     */
+    public CapacityView(FlowGraph graph, double[] capacities) {
+
+        if (capacities.length != graph.getNumEdges()) {
+
+            throw new IllegalArgumentException("Expected " + graph.getNumEdges() + " capacities");
+
+        } //end if
+
+        this.graph = graph;
+        this.capacities = capacities;
+
+    } //end CapacityView
+
+    public FlowGraph getGraph() {
+
+        return graph;
+
+    } //end getGraph
+
+    public int getNumVertices() {
+
+        return graph.getNumVertices();
+
+    } //end getNumVertices
+
+    public int getNumEdges() {
+
+        return graph.getNumEdges();
+
+    } //end getNumEdges
+
+    public int index(int id) {
+
+        return graph.index(id);
+
+    } //end index
+
+    public int id(int v) {
+
+        return graph.id(v);
+
+    } //end id
+
+    public int firstArc(int v) {
+
+        return graph.firstArc(v);
+
+    } //end firstArc
+
+    public int lastArc(int v) {
+
+        return graph.lastArc(v);
+
+    } //end lastArc
+
+    public int arcHead(int a) {
+
+        return graph.arcHead(a);
+
+    } //end arcHead
+
+    public int arcEdge(int a) {
+
+        return graph.arcEdge(a);
+
+    } //end arcEdge
+
+    public int reverse(int a) {
+
+        return graph.reverse(a);
+
+    } //end reverse
+
+    public int forwardArc(int e) {
+
+        return graph.forwardArc(e);
+
+    } //end forwardArc
+
+    public int edgeTail(int e) {
+
+        return graph.edgeTail(e);
+
+    } //end edgeTail
+
+    public int edgeHead(int e) {
+
+        return graph.edgeHead(e);
+
+    } //end edgeHead
+
+    public double capacity(int e) {
+
+        return capacities[e];
+
+    } //end capacity
+
+    public void setCapacity(int e, double capacity) {
+
+        capacities[e] = capacity;
+
+    } //end setCapacity
+
+    public int originalEdge(int e) {
+
+        return graph.originalEdge(e);
+
+    } //end originalEdge
+
+    public FlowEdge getEdge(int e) {
+
+        return graph.getEdge(e);
+
+    } //end getEdge
+
+} //end CapacityView
@@ -0,0 +1,419 @@
+package datastructures.flownetwork;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * CompactGraph.java
+ *
+ * Course: CS4490Z
+ *
+ * A CompactGraph is a snapshot of the structure of a FlowNetwork stored in
+ * compressed sparse row form. Vertices are renumbered 0 to n-1 in the order the
+ * network stores them, and edges are numbered 0 to m-1 in the order getEdges()
+ * returns them. Every edge appears twice in the adjacency arrays, once in the row
+ * of each endpoint, so a traversal sees both directions without a residual
+ * adjacency list.
+ *
+ * The arcs of vertex v are the indices firstArc(v) to lastArc(v) - 1. Arc a leads
+ * to arcHead(a) and belongs to edge arcEdge(a). The two arcs of an edge are twins:
+ * reverse(a) is the arc of the same edge in the row of arcHead(a), and forwardArc(e)
+ * is the arc of edge e that runs from its start vertex to its end vertex.
+ *
+ * The topology is fixed when the snapshot is taken. The capacities are copied into
+ * a primitive array, so capacity(e), getCapacities and cutCost never touch the
+ * edges, and every edge writes a capacity changed with FlowEdge.setCapacity through
+ * to the array of the newest snapshot that holds it.
+ */
+public class CompactGraph implements FlowGraph {
+
+    private final int numVertices;
+    private final int numEdges;
+
+    private final int[] vertexIds;
+    private final int[] indices;
+    private final FlowVertex[] vertices;
+
+    private final int[] firstArc;
+    private final int[] arcHead;
+    private final int[] arcEdge;
+    private final int[] reverse;
+
+    private final int[] edgeTail;
+    private final int[] edgeHead;
+    private final int[] forwardArc;
+    private final FlowEdge[] edges;
+    private final double[] capacities;
+    private volatile int[] origins;
+
+    /**
+     * Builds the compact form of a set of vertices and their adjacency lists.
+     * @param vertices the vertices of a flow network, keyed by id
+     */
+    public CompactGraph(Map<Integer, FlowVertex> vertices) {
+
+        int maxId = -1;
+        int m = 0;
+
+        this.numVertices = vertices.size();
+        this.vertexIds = new int[numVertices];
+        this.vertices = new FlowVertex[numVertices];
+
+        int v = 0;
+
+        // Number the vertices in storage order
+        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
+
+            this.vertexIds[v] = entry.getValue().id();
+            this.vertices[v] = entry.getValue();
+            m += entry.getValue().getAllEdges().size();
+
+            if (entry.getValue().id() > maxId) {
+
+                maxId = entry.getValue().id();
+
+            } //end if
+
+            v++;
+
+        } //end for
+
+        this.numEdges = m;
+        this.indices = new int[maxId + 1];
+        Arrays.fill(indices, -1);
+
+        for (int i = 0; i < numVertices; i++) {
+
+            indices[vertexIds[i]] = i;
+
+        } //end for
+
+        this.edgeTail = new int[numEdges];
+        this.edgeHead = new int[numEdges];
+        this.edges = new FlowEdge[numEdges];
+        this.capacities = new double[numEdges];
+        this.firstArc = new int[numVertices + 1];
+
+        int e = 0;
+
+        // Number the edges in the order of the adjacency lists
+        for (int i = 0; i < numVertices; i++) {
+
+            for (FlowEdge edge : this.vertices[i].getAllEdges()) {
+
+                edges[e] = edge;
+                capacities[e] = edge.getCapacity();
+                edge.bind(this, e);
+                edgeTail[e] = i;
+                edgeHead[e] = indices[edge.getEndVertex().id()];
+
+                firstArc[edgeTail[e] + 1]++;
+                firstArc[edgeHead[e] + 1]++;
+                e++;
+
+            } //end for
+
+        } //end for
+
+        this.arcHead = new int[2 * numEdges];
+        this.arcEdge = new int[2 * numEdges];
+        this.reverse = new int[2 * numEdges];
+        this.forwardArc = new int[numEdges];
+
+        fillArcs();
+
+    } //end CompactGraph
+
+    /**
+     * Turns the degree counts in firstArc into offsets and fills both arcs of every edge,
+     * pairing each arc with its twin.
+     */
+    private void fillArcs() {
+
+        for (int i = 0; i < numVertices; i++) {
+
+            firstArc[i + 1] += firstArc[i];
+
+        } //end for
+
+        int[] next = Arrays.copyOf(firstArc, numVertices);
+
+        for (int e = 0; e < numEdges; e++) {
+
+            int a = next[edgeTail[e]]++;
+            int b = next[edgeHead[e]]++;
+
+            arcHead[a] = edgeHead[e];
+            arcEdge[a] = e;
+            arcHead[b] = edgeTail[e];
+            arcEdge[b] = e;
+
+            reverse[a] = b;
+            reverse[b] = a;
+            forwardArc[e] = a;
+
+        } //end for
+
+    } //end fillArcs
+
+    public int getNumVertices() {
+
+        return numVertices;
+
+    } //end getNumVertices
+
+    public int getNumEdges() {
+
+        return numEdges;
+
+    } //end getNumEdges
+
+    /**
+     * Returns the dense index of a vertex id.
+     * @param id the id of the vertex
+     * @return the index of the vertex, or -1 if the vertex is not in the graph
+     */
+    public int index(int id) {
+
+        if (id < 0 || id >= indices.length) {
+
+            return -1;
+
+        } //end if
+
+        return indices[id];
+
+    } //end index
+
+    /**
+     * Returns the vertex id stored at a dense index.
+     * @param v the index of the vertex
+     * @return the id of the vertex
+     */
+    public int id(int v) {
+
+        return vertexIds[v];
+
+    } //end id
+
+    public FlowVertex getVertex(int v) {
+
+        return vertices[v];
+
+    } //end getVertex
+
+    public int firstArc(int v) {
+
+        return firstArc[v];
+
+    } //end firstArc
+
+    public int lastArc(int v) {
+
+        return firstArc[v + 1];
+
+    } //end lastArc
+
+    public int degree(int v) {
+
+        return firstArc[v + 1] - firstArc[v];
+
+    } //end degree
+
+    public int arcHead(int a) {
+
+        return arcHead[a];
+
+    } //end arcHead
+
+    public int arcEdge(int a) {
+
+        return arcEdge[a];
+
+    } //end arcEdge
+
+    public int reverse(int a) {
+
+        return reverse[a];
+
+    } //end reverse
+
+    public int forwardArc(int e) {
+
+        return forwardArc[e];
+
+    } //end forwardArc
+
+    public int edgeTail(int e) {
+
+        return edgeTail[e];
+
+    } //end edgeTail
+
+    public int edgeHead(int e) {
+
+        return edgeHead[e];
+
+    } //end edgeHead
+
+    public double capacity(int e) {
+
+        return capacities[e];
+
+    } //end capacity
+
+    /**
+     * Stores a capacity written to one of the edges.
+     * @param e the index of the edge
+     * @param capacity the new capacity
+     */
+    void writeCapacity(int e, double capacity) {
+
+        capacities[e] = capacity;
+
+    } //end writeCapacity
+
+    public int originalEdge(int e) {
+
+        int[] o = origins;
+
+        if (o == null) {
+
+            o = numberOriginals();
+
+        } //end if
+
+        return o[e];
+
+    } //end originalEdge
+
+    public FlowEdge getEdge(int e) {
+
+        return edges[e];
+
+    } //end getEdge
+
+    /**
+     * Numbers the original edges in the order their first piece appears, the first
+     * time originalEdge is called.
+     * @return the number of the original of each edge, indexed by edge
+     */
+    private synchronized int[] numberOriginals() {
+
+        if (origins == null) {
+
+            Map<FlowEdge, Integer> numbers = new IdentityHashMap<>();
+            int[] o = new int[numEdges];
+
+            for (int e = 0; e < numEdges; e++) {
+
+                FlowEdge original = edges[e].getOriginal() != null ? edges[e].getOriginal() : edges[e];
+                Integer number = numbers.get(original);
+
+                if (number == null) {
+
+                    number = numbers.size();
+                    numbers.put(original, number);
+
+                } //end if
+
+                o[e] = number;
+
+            } //end for
+
+            origins = o;
+
+        } //end if
+
+        return origins;
+
+    } //end numberOriginals
+
+    /**
+     * Returns the current edge capacities, indexed by edge.
+     * @return the capacities
+     */
+    public double[] getCapacities() {
+
+        return Arrays.copyOf(capacities, numEdges);
+
+    } //end getCapacities
+
+    /**
+     * Labels every vertex with the connected component that holds it. Components
+     * are numbered in the order of their lowest vertex index.
+     * @return the component of each vertex, indexed by vertex
+     */
+    public int[] connectedComponents() {
+
+        int[] component = new int[numVertices];
+        int[] queue = new int[numVertices];
+        int count = 0;
+
+        Arrays.fill(component, -1);
+
+        for (int s = 0; s < numVertices; s++) {
+
+            if (component[s] < 0) {
+
+                int head = 0;
+                int tail = 0;
+
+                component[s] = count;
+                queue[tail++] = s;
+
+                // Breadth first search over both directions of every edge
+                while (head < tail) {
+
+                    int v = queue[head++];
+
+                    for (int a = firstArc[v]; a < firstArc[v + 1]; a++) {
+
+                        int w = arcHead[a];
+
+                        if (component[w] < 0) {
+
+                            component[w] = count;
+                            queue[tail++] = w;
+
+                        } //end if
+
+                    } //end for
+
+                } //end while
+
+                count++;
+
+            } //end if
+
+        } //end for
+
+        return component;
+
+    } //end connectedComponents
+
+    /**
+     * Computes the weight of the edges whose endpoints are in different parts.
+     * @param partition the part of each vertex, indexed by vertex
+     * @return the total capacity of the edges crossing between parts
+     */
+    public double cutCost(int[] partition) {
+
+        double cost = 0.0;
+
+        for (int e = 0; e < numEdges; e++) {
+
+            if (partition[edgeTail[e]] != partition[edgeHead[e]]) {
+
+                cost += capacities[e];
+
+            } //end if
+
+        } //end for
+
+        return cost;
+
+    } //end cutCost
+
+} //end CompactGraph
@@ -0,0 +1,382 @@
+package datastructures.flownetwork;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * ContractedGraph.java
+ *
+ * Course: CS4490Z
+ *
+ * A ContractedGraph is a FlowGraph made from part of another graph. The kept
+ * vertices stay as they are and are numbered 0 to r-1 in index order. The vertices
+ * of a source set are merged into vertex r, the source, and every other vertex is
+ * merged into vertex r+1, the sink. With a sink set, only its vertices are merged
+ * into the sink, and every other vertex is left out with its edges. An edge whose
+ * endpoints end up in the same vertex is dropped. Only the rows of the kept
+ * vertices, the source set and the sink set are read, so building the graph takes
+ * time in proportion to their arcs and not to the whole graph.
+ *
+ * The graph only owns its arc arrays and a rank table over the words of the kept
+ * set, which finds the number of a kept vertex in constant time. Every edge remembers the edge of the graph
+ * underneath that it came from and reads its capacity there, so any number of
+ * contracted graphs can be cut at once over one shared graph, each with its own
+ * engine. The merged vertices have no id, and originalEdge keeps the numbering of
+ * the graph underneath.
+ */
+public class ContractedGraph implements FlowGraph {
+
+    private final FlowGraph graph;
+
+    private final int numVertices;
+    private final int numEdges;
+    private final int[] vertices;
+    private final long[] keptWords;
+    private final int[] keptRanks;
+    private final int source;
+    private final int sink;
+
+    private final int[] firstArc;
+    private final int[] arcHead;
+    private final int[] arcEdge;
+    private final int[] reverse;
+
+    private final int[] edgeTail;
+    private final int[] edgeHead;
+    private final int[] forwardArc;
+    private final int[] edges;
+
+    /**
+     * Contracts a graph.
+     * @param graph the graph underneath
+     * @param kept the indices of the vertices to keep
+     * @param sourceSet the indices of the vertices to merge into the source, none of them kept
+     */
+    public ContractedGraph(FlowGraph graph, BitSet kept, BitSet sourceSet) {
+
+        this(graph, kept, sourceSet, null);
+
+    } //end ContractedGraph
+
+    /**
+     * Contracts part of a graph.
+     * @param graph the graph underneath
+     * @param kept the indices of the vertices to keep
+     * @param sourceSet the indices of the vertices to merge into the source, none of them kept
+     * @param sinkSet the indices of the vertices to merge into the sink, none of them kept or in
+     * the source set, or null to merge every other vertex
+     */
+    public ContractedGraph(FlowGraph graph, BitSet kept, BitSet sourceSet, BitSet sinkSet) {
+
+        if (kept.intersects(sourceSet)) {
+
+            throw new IllegalArgumentException("A kept vertex cannot be merged into the source");
+
+        } //end if
+
+        if (sinkSet != null && (sinkSet.intersects(kept) || sinkSet.intersects(sourceSet))) {
+
+            throw new IllegalArgumentException("A vertex merged into the sink cannot be kept or merged into the source");
+
+        } //end if
+
+        this.graph = graph;
+        this.vertices = kept.stream().toArray();
+        this.keptWords = kept.toLongArray();
+        this.keptRanks = new int[keptWords.length];
+
+        for (int w = 1; w < keptWords.length; w++) {
+
+            keptRanks[w] = keptRanks[w - 1] + Long.bitCount(keptWords[w - 1]);
+
+        } //end for
+
+        this.source = vertices.length;
+        this.sink = source + 1;
+        this.numVertices = source + 2;
+
+        BitSet rows = (BitSet) kept.clone();
+        rows.or(sourceSet);
+
+        if (sinkSet != null) {
+
+            rows.or(sinkSet);
+
+        } //end if
+
+        int m = 0;
+
+        for (int v = rows.nextSetBit(0); v >= 0; v = rows.nextSetBit(v + 1)) {
+
+            int tail = local(sourceSet, sinkSet, v);
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int head = local(sourceSet, sinkSet, graph.arcHead(a));
+
+                if (counts(rows, v, a) && head >= 0 && tail != head) {
+
+                    m++;
+
+                } //end if
+
+            } //end for
+
+        } //end for
+
+        this.numEdges = m;
+        this.edgeTail = new int[numEdges];
+        this.edgeHead = new int[numEdges];
+        this.edges = new int[numEdges];
+        this.firstArc = new int[numVertices + 1];
+
+        int e = 0;
+
+        for (int v = rows.nextSetBit(0); v >= 0; v = rows.nextSetBit(v + 1)) {
+
+            int tail = local(sourceSet, sinkSet, v);
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int head = local(sourceSet, sinkSet, graph.arcHead(a));
+
+                if (counts(rows, v, a) && head >= 0 && tail != head) {
+
+                    edges[e] = graph.arcEdge(a);
+                    edgeTail[e] = tail;
+                    edgeHead[e] = head;
+
+                    firstArc[tail + 1]++;
+                    firstArc[head + 1]++;
+                    e++;
+
+                } //end if
+
+            } //end for
+
+        } //end for
+
+        this.arcHead = new int[2 * numEdges];
+        this.arcEdge = new int[2 * numEdges];
+        this.reverse = new int[2 * numEdges];
+        this.forwardArc = new int[numEdges];
+
+        fillArcs();
+
+    } //end ContractedGraph
+
+    /**
+     * Decides whether an arc is the one its edge is taken from. An edge with both
+     * endpoints in the rows read is taken from the row of its start vertex, and any
+     * other edge from the one row it appears in.
+     * @param rows the vertices whose rows are read
+     * @param v the vertex whose row holds the arc
+     * @param a the arc
+     * @return true if the edge of the arc is taken from this arc
+     */
+    private boolean counts(BitSet rows, int v, int a) {
+
+        return !rows.get(graph.arcHead(a)) || graph.edgeTail(graph.arcEdge(a)) == v;
+
+    } //end counts
+
+    /**
+     * Numbers a kept vertex by counting the kept vertices before it.
+     * @param v the index of the vertex in the graph underneath
+     * @return the index of the vertex in this graph, or -1 if it is not kept
+     */
+    private int rank(int v) {
+
+        int w = v >>> 6;
+
+        if (w >= keptWords.length || (keptWords[w] & (1L << v)) == 0) {
+
+            return -1;
+
+        } //end if
+
+        return keptRanks[w] + Long.bitCount(keptWords[w] & ((1L << v) - 1));
+
+    } //end rank
+
+    /**
+     * Finds the vertex of this graph that a vertex of the graph underneath ends up in.
+     * @param sourceSet the indices of the vertices merged into the source
+     * @param sinkSet the indices of the vertices merged into the sink, or null for every other vertex
+     * @param v the index of the vertex in the graph underneath
+     * @return the index of the vertex in this graph, or -1 if it is left out
+     */
+    private int local(BitSet sourceSet, BitSet sinkSet, int v) {
+
+        int r = rank(v);
+
+        if (r >= 0) {
+
+            return r;
+
+        } //end if
+
+        if (sourceSet.get(v)) {
+
+            return source;
+
+        } //end if
+
+        return sinkSet == null || sinkSet.get(v) ? sink : -1;
+
+    } //end local
+
+    /**
+     * Turns the degree counts in firstArc into offsets and fills both arcs of every edge,
+     * pairing each arc with its twin.
+     */
+    private void fillArcs() {
+
+        for (int i = 0; i < numVertices; i++) {
+
+            firstArc[i + 1] += firstArc[i];
+
+        } //end for
+
+        int[] next = Arrays.copyOf(firstArc, numVertices);
+
+        for (int e = 0; e < numEdges; e++) {
+
+            int a = next[edgeTail[e]]++;
+            int b = next[edgeHead[e]]++;
+
+            arcHead[a] = edgeHead[e];
+            arcEdge[a] = e;
+            arcHead[b] = edgeTail[e];
+            arcEdge[b] = e;
+
+            reverse[a] = b;
+            reverse[b] = a;
+            forwardArc[e] = a;
+
+        } //end for
+
+    } //end fillArcs
+
+    public FlowGraph getGraph() {
+
+        return graph;
+
+    } //end getGraph
+
+    public int getSource() {
+
+        return source;
+
+    } //end getSource
+
+    public int getSink() {
+
+        return sink;
+
+    } //end getSink
+
+    /**
+     * Returns the index a kept vertex has in the graph underneath.
+     * @param v the index of the vertex in this graph
+     * @return the index of the vertex in the graph underneath, or -1 for the source and the sink
+     */
+    public int baseIndex(int v) {
+
+        return v < source ? vertices[v] : -1;
+
+    } //end baseIndex
+
+    public int getNumVertices() {
+
+        return numVertices;
+
+    } //end getNumVertices
+
+    public int getNumEdges() {
+
+        return numEdges;
+
+    } //end getNumEdges
+
+    public int index(int id) {
+
+        int v = graph.index(id);
+
+        return v >= 0 ? rank(v) : -1;
+
+    } //end index
+
+    public int id(int v) {
+
+        return v < source ? graph.id(vertices[v]) : -1;
+
+    } //end id
+
+    public int firstArc(int v) {
+
+        return firstArc[v];
+
+    } //end firstArc
+
+    public int lastArc(int v) {
+
+        return firstArc[v + 1];
+
+    } //end lastArc
+
+    public int arcHead(int a) {
+
+        return arcHead[a];
+
+    } //end arcHead
+
+    public int arcEdge(int a) {
+
+        return arcEdge[a];
+
+    } //end arcEdge
+
+    public int reverse(int a) {
+
+        return reverse[a];
+
+    } //end reverse
+
+    public int forwardArc(int e) {
+
+        return forwardArc[e];
+
+    } //end forwardArc
+
+    public int edgeTail(int e) {
+
+        return edgeTail[e];
+
+    } //end edgeTail
+
+    public int edgeHead(int e) {
+
+        return edgeHead[e];
+
+    } //end edgeHead
+
+    public double capacity(int e) {
+
+        return graph.capacity(edges[e]);
+
+    } //end capacity
+
+    public int originalEdge(int e) {
+
+        return graph.originalEdge(edges[e]);
+
+    } //end originalEdge
+
+    public FlowEdge getEdge(int e) {
+
+        return graph.getEdge(edges[e]);
+
+    } //end getEdge
+
+} //end ContractedGraph
@@ -0,0 +1,297 @@
+package datastructures.flownetwork;
+
+import datastructures.linkcut.LinkCutTree;
+import datastructures.linkcut.TreeNode;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Dinic.java
+ *
+ * Course: CS4490Z
+ *
+ * Dinic's algorithm with the dynamic tree blocking flow of Sleator and Tarjan. Each
+ * phase builds the level graph of shortest residual paths from the source, then
+ * finds a blocking flow in it. The current arcs of the level graph are kept as a
+ * forest in a LinkCutTree, where the value of a node is the residual capacity of
+ * the arc to its parent. A path to the sink is augmented with one path update, and
+ * a dead end is removed by cutting the tree edges into it. A phase costs
+ * O(m log n), and there are at most n phases, so the run is O(nm log n) in the worst case.
+ */
+public class Dinic implements MaxFlowEngine {
+
+    private ResidualNetwork residual;
+    private FlowGraph graph;
+    private int n;
+
+    private final LinkCutTree forest;
+    private TreeNode[] nodes;
+
+    private int[] level;
+    private int[] current;
+    private int[] parentArc;
+    private int[] queue;
+
+    private double flow;
+
+    public Dinic() {
+
+        this.forest = new LinkCutTree();
+
+    } //end Dinic
+
+    /**
+     * Computes a maximum flow and the minimum cut whose source side is every vertex
+     * still reachable from the source in the residual network.
+     * @param graph the network to cut
+     * @param source the index of the source
+     * @param sink the index of the sink
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(FlowGraph graph, int source, int sink) {
+
+        resetFlow(graph);
+        flow = 0.0;
+
+        while (buildLevels(source, sink)) {
+
+            blockingFlow(source, sink);
+
+        } //end while
+
+        BitSet sourceSide = new BitSet(n);
+
+        for (int v = 0; v < n; v++) {
+
+            if (level[v] >= 0) {
+
+                sourceSide.set(v);
+
+            } //end if
+
+        } //end for
+
+        return new MinCut(graph, sourceSide, flow);
+
+    } //end minimumCut
+
+    public MaxFlowEngine copy() {
+
+        return new Dinic();
+
+    } //end copy
+
+    public double getFlow() {
+
+        return flow;
+
+    } //end getFlow
+
+    /**
+     * Removes all flow from the network and sizes the arrays for a compact graph.
+     * The arrays and the tree nodes are kept while the compact graph is the same.
+     * Every phase cuts all of its tree arcs, so the forest is empty between runs.
+     * @param compact the network to cut
+     */
+    private void resetFlow(FlowGraph compact) {
+
+        if (residual == null || graph != compact) {
+
+            graph = compact;
+            n = compact.getNumVertices();
+            residual = new ResidualNetwork(compact);
+            nodes = new TreeNode[n];
+
+            for (int v = 0; v < n; v++) {
+
+                nodes[v] = new TreeNode(v);
+
+            } //end for
+
+            level = new int[n];
+            current = new int[n];
+            parentArc = new int[n];
+            queue = new int[n];
+
+            Arrays.fill(parentArc, -1);
+
+        } //end if
+
+        else {
+
+            residual.reset();
+
+        } //end else
+
+    } //end resetFlow
+
+    /**
+     * Labels every vertex with its residual distance from the source.
+     * @return true if the sink can still be reached
+     */
+    private boolean buildLevels(int source, int sink) {
+
+        int head = 0;
+        int tail = 0;
+
+        Arrays.fill(level, -1);
+        level[source] = 0;
+        queue[tail++] = source;
+
+        while (head < tail) {
+
+            int v = queue[head++];
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int w = graph.arcHead(a);
+
+                if (level[w] < 0 && residual.residual(a) > 0) {
+
+                    level[w] = level[v] + 1;
+                    queue[tail++] = w;
+
+                } //end if
+
+            } //end for
+
+        } //end while
+
+        return level[sink] >= 0;
+
+    } //end buildLevels
+
+    private boolean admissible(int a, int v) {
+
+        return residual.residual(a) > 0 && level[graph.arcHead(a)] == level[v] + 1;
+
+    } //end admissible
+
+    /**
+     * Finds a blocking flow in the level graph.
+     */
+    private void blockingFlow(int source, int sink) {
+
+        for (int v = 0; v < n; v++) {
+
+            current[v] = graph.firstArc(v);
+
+        } //end for
+
+        while (true) {
+
+            TreeNode root = forest.findRoot(nodes[source]);
+            int v = root.id();
+
+            // The tree path from the source reaches the sink, so augment along it
+            if (v == sink) {
+
+                TreeNode min = forest.findMin(nodes[source]);
+                double delta = forest.findValue(min);
+
+                forest.addPath(nodes[source], -delta);
+                flow += delta;
+
+                // Remove every arc the augmentation saturated
+                while (true) {
+
+                    min = forest.findMin(nodes[source]);
+
+                    if (forest.findValue(min) > 0) {
+
+                        break;
+
+                    } //end if
+
+                    cutArc(min.id());
+
+                } //end while
+
+                continue;
+
+            } //end if
+
+            while (current[v] < graph.lastArc(v) && !admissible(current[v], v)) {
+
+                current[v]++;
+
+            } //end while
+
+            // Advance along the current arc of the root
+            if (current[v] < graph.lastArc(v)) {
+
+                int a = current[v];
+
+                forest.changeValue(nodes[v], residual.residual(a));
+                forest.link(nodes[v], nodes[graph.arcHead(a)]);
+                parentArc[v] = a;
+
+            } //end if
+
+            // The source is a dead end, so the flow is blocking
+            else if (v == source) {
+
+                break;
+
+            } //end else if
+
+            // Retreat from a dead end and cut the tree arcs into it
+            else {
+
+                for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                    int u = graph.arcHead(a);
+
+                    if (parentArc[u] >= 0 && graph.arcHead(parentArc[u]) == v) {
+
+                        cutArc(u);
+
+                    } //end if
+
+                } //end for
+
+                level[v] = -1;
+
+            } //end else
+
+        } //end while
+
+        // Move the flow still held in the forest onto the arcs
+        for (int u = 0; u < n; u++) {
+
+            if (parentArc[u] >= 0) {
+
+                cutArc(u);
+
+            } //end if
+
+        } //end for
+
+    } //end blockingFlow
+
+    /**
+     * Cuts the tree arc from u to its parent and applies the flow sent along it.
+     * @param u the child end of the tree arc
+     */
+    private void cutArc(int u) {
+
+        int a = parentArc[u];
+        double remaining = forest.findValue(nodes[u]);
+
+        residual.push(a, residual.residual(a) - remaining);
+
+        forest.cut(nodes[u]);
+        forest.changeValue(nodes[u], Double.POSITIVE_INFINITY);
+        parentArc[u] = -1;
+
+        // A saturated arc is no longer admissible
+        if (remaining == 0) {
+
+            current[u]++;
+
+        } //end if
+
+    } //end cutArc
+
+} //end Dinic
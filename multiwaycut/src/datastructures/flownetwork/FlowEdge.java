@@ -21,7 +21,8 @@ public class FlowEdge {
 	private FlowEdge original;
 	private double capacity;
 	private double flow;
-	private int from;
+	private CompactGraph compact;
+	private int compactIndex;
 	
 	/**
 	 * Declares a new FlowEdge with 0 flow
@@ -55,7 +56,6 @@ public class FlowEdge {
 		this.endVertex = endVertex;
 		this.capacity = capacity;
 		this.flow = 0.0;
-		this.from = -10;
 		
 	} //end FlowEdge
 
@@ -112,10 +112,31 @@ public class FlowEdge {
 
 		this.capacity = capacity;
 
+		if (compact != null) {
+
+			compact.writeCapacity(compactIndex, capacity);
+
+		} //end if
+
 	} //end setCapacity
+
+	/**
+	 * Ties the edge to the compact graph that now holds it, so that setCapacity keeps
+	 * the capacity array of the compact graph in step. A newer compact graph replaces
+	 * an older one.
+	 * @param compact the compact graph
+	 * @param index the index of the edge in the compact graph
+	 */
+	void bind(CompactGraph compact, int index) {
+
+		this.compact = compact;
+		this.compactIndex = index;
+
+	} //end bind
 	
 	/**
-	 * Returns the flow of an edge
+	 * Returns the net flow of an edge. Positive flow runs from the start vertex to the
+	 * end vertex and negative flow runs the other way.
 	 * @return the flow
 	 */
 	public double getFlow() {
@@ -126,7 +147,7 @@ public class FlowEdge {
 
 	public boolean setFlow(double flow) {
 
-		if (flow > this.capacity || flow < 0.0) {
+		if (flow > this.capacity || flow < -this.capacity) {
 
 			return false;
 
@@ -141,252 +162,9 @@ public class FlowEdge {
 
 	} //end setFlow
 
-	public int getFrom() {
-
-		return from;
-
-	} //end getFrom
-
-	public void setFrom(int from) {
-
-		this.from = from;
-
-	} //end setFrom
-
-	public FlowVertex pushFlowForward() {
-
-		double previousExcess = endVertex.getExcess();
-		double deltaFlow = 0;
-
-		// The start vertex is the source
-		if (this.getStartVertex().getExcess() == -1) {
-
-			deltaFlow = capacity - flow;
-			flow = capacity;
-
-		} //end if
-
-		// The start vertex isn't the source
-		else {
-
-			// Saturating push
-			if (capacity - flow <= startVertex.getExcess()) {
-
-				deltaFlow = capacity - flow;
-
-			} //end if
-
-			// Non-saturating push
-			else {
-
-				deltaFlow = startVertex.getExcess();
-				startVertex.setPreviousEdge();
-
-			} //end else
-
-			flow += deltaFlow;
-			startVertex.changeExcess(-deltaFlow);
-
-		} //end else
-
-		endVertex.changeExcess(deltaFlow);
-		//StdOut.println("Pushing " + deltaFlow + " Flow Forward: " + this.edgeToString());
-
-		if (deltaFlow > 0) {
-
-			this.setFrom(startVertex.id());
-
-		} //end if
-
-		// Return a new active vertex
-		if (previousExcess == 0 && deltaFlow > 0) {
-
-			//endVertex.setPredecessor(startVertex.id());
-			endVertex.setDead(false);
-			return endVertex;
-
-		} //end if
-
-		else {
-
-			return null;
-
-		} //end else
-
-	} //end pushFlowForward
-
-	public FlowVertex pushResFlowForward() {
-
-		double previousExcess = startVertex.getExcess();
-		double deltaFlow = 0;
-
-		// The start vertex is the source
-		if (this.getEndVertex().getExcess() == -1) {
-
-			deltaFlow = capacity - flow;
-			flow = capacity;
-
-		} //end if
-
-		// The start vertex isn't the source
-		else {
-
-			// Saturating push
-			if (capacity - flow <= endVertex.getExcess()) {
-
-				deltaFlow = capacity - flow;
-
-			} //end if
-
-			// Non-saturating push
-			else {
-
-				deltaFlow = endVertex.getExcess();
-				endVertex.setPreviousEdge();
-
-			} //end else
-
-			flow += deltaFlow;
-			endVertex.changeExcess(-deltaFlow);
-
-		} //end else
-
-		startVertex.changeExcess(deltaFlow);
-		//StdOut.println("Pushing " + deltaFlow + " Res Flow Forward: " + this.edgeToString());
-
-		if (deltaFlow > 0) {
-
-			this.setFrom(endVertex.id());
-
-		} //end if
-
-		// Return a new active vertex
-		if (previousExcess == 0 && deltaFlow > 0) {
-
-			startVertex.setDead(false);
-			return startVertex;
-
-		} //end if
-
-		else {
-
-			return null;
-
-		} //end else
-
-	} //end pushResFlowForward
-
-	public FlowVertex pushFlowBackward() {
-
-		double previousExcess = startVertex.getExcess();
-		double deltaFlow = 0;
-
-		// Saturating push
-		if (flow <= endVertex.getExcess()) {
-
-			deltaFlow = flow;
-
-		} //end if
-
-		// Non saturating-push
-		else {
-
-			deltaFlow = endVertex.getExcess();
-			startVertex.setPreviousEdge();
-
-		} //end else
-
-		flow -= deltaFlow;
-
-		// Adjust the excess of the start vertex
-		if (startVertex.getExcess() >= 0) {
-
-			startVertex.changeExcess(deltaFlow);
-
-		} //end if
-
-		endVertex.changeExcess(-deltaFlow);
-		//StdOut.println("Pushing " + deltaFlow + " Flow Backward: " + this.edgeToString());
-
-		if (flow == 0) {
-
-			this.setFrom(-10);
-
-		} //end if
-
-		// Return a new active vertex
-		if (previousExcess == 0 && deltaFlow > 0) {
-
-			startVertex.setDead(false);
-			return startVertex;
-
-		} //end if
-
-		else {
-
-			return null;
-
-		} //end else
-
-	} //end pushFlowBackward
-
-	public FlowVertex pushResFlowBackward() {
-
-		double previousExcess = endVertex.getExcess();
-		double deltaFlow = 0;
-
-		// Saturating push
-		if (flow <= startVertex.getExcess()) {
-
-			deltaFlow = flow;
-
-		} //end if
-
-		// Non saturating-push
-		else {
-
-			deltaFlow = startVertex.getExcess();
-			endVertex.setPreviousEdge();
-
-		} //end else
-
-		flow -= deltaFlow;
-
-		// Adjust the excess of the start vertex
-		if (endVertex.getExcess() >= 0) {
-
-			endVertex.changeExcess(deltaFlow);
-
-		} //end if
-
-		startVertex.changeExcess(-deltaFlow);
-		//StdOut.println("Pushing " + deltaFlow + " Res Flow Backward: " + this.edgeToString());
-
-		if (flow == 0) {
-
-			this.setFrom(-10);
-
-		} //end if
-
-		// Return a new active vertex
-		if (previousExcess == 0 && deltaFlow > 0) {
-
-			endVertex.setDead(false);
-			return endVertex;
-
-		} //end if
-
-		else {
-
-			return null;
-
-		} //end else
-
-	} //end pushResFlowBackward
-
 	public String edgeToString() {
 
-		return "(" + startVertex.id() + "," + endVertex.id() + ",c:" + capacity + ",f:" + flow + ",from: " + from + ",lslabel1:" + startVertex.getLocalSearchLabel() + ",lslabel2:" + endVertex.getLocalSearchLabel() + ")";
+		return "(" + startVertex.id() + "," + endVertex.id() + ",c:" + capacity + ",f:" + flow + ",lslabel1:" + startVertex.getLocalSearchLabel() + ",lslabel2:" + endVertex.getLocalSearchLabel() + ")";
 
 	} //end edgeToString
 	
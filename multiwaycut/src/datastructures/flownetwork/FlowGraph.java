@@ -0,0 +1,77 @@
+package datastructures.flownetwork;
+
+/**
+ * FlowGraph.java
+ *
+ * Course: CS4490Z
+ *
+ * A FlowGraph is the read only view of a network in compressed sparse row form that
+ * the maximum flow engines and the rounding cost work from. Vertices are numbered
+ * 0 to n-1 and edges 0 to m-1. Every edge has two arcs, one in the row of each
+ * endpoint: the arcs of vertex v are firstArc(v) to lastArc(v) - 1, arc a leads to
+ * arcHead(a) and belongs to edge arcEdge(a), reverse(a) is its twin, and
+ * forwardArc(e) is the arc of edge e that runs from edgeTail(e) to edgeHead(e).
+ *
+ * CompactGraph keeps these arrays on the heap and MappedGraph keeps them in a
+ * memory mapped file.
+ */
+public interface FlowGraph {
+
+    int getNumVertices();
+
+    int getNumEdges();
+
+    /**
+     * Returns the dense index of a vertex id.
+     * @param id the id of the vertex
+     * @return the index of the vertex, or -1 if the vertex is not in the graph
+     */
+    int index(int id);
+
+    /**
+     * Returns the vertex id stored at a dense index.
+     * @param v the index of the vertex
+     * @return the id of the vertex
+     */
+    int id(int v);
+
+    int firstArc(int v);
+
+    int lastArc(int v);
+
+    int arcHead(int a);
+
+    int arcEdge(int a);
+
+    int reverse(int a);
+
+    int forwardArc(int e);
+
+    int edgeTail(int e);
+
+    int edgeHead(int e);
+
+    /**
+     * Returns the capacity an engine should cut edge e with now.
+     * @param e the edge
+     * @return the current capacity of the edge
+     */
+    double capacity(int e);
+
+    /**
+     * Returns a number shared by every edge cut from the same original edge by
+     * subdivision, so a cost can charge the original once.
+     * @param e the edge
+     * @return the number of the original edge, between 0 and m-1
+     */
+    int originalEdge(int e);
+
+    /**
+     * Returns the FlowEdge behind edge e.
+     * @param e the edge
+     * @return the edge object
+     * @throws UnsupportedOperationException if the graph holds no edge objects
+     */
+    FlowEdge getEdge(int e);
+
+} //end FlowGraph
@@ -13,6 +13,8 @@ import java.util.*;
 public class FlowNetwork {
 
     private Graph graph;
+    private CompactGraph frozen;
+    private long frozenVersion;
     private LinkedList<Integer> terminals;
     private Map<Integer, Point> coordinates;
 
@@ -185,14 +187,14 @@ public class FlowNetwork {
             if (sourceId != this.sinkId) {
 
                 this.sourceId = sourceId;
-                graph.addVertex(sourceId);
+                addVertex(sourceId);
 
             } //end if
 
             else {
 
                 this.sourceId = sourceId;
-                graph.addVertex(sourceId);
+                addVertex(sourceId);
                 this.sinkId = -1;
 
             } //end else
@@ -220,14 +222,14 @@ public class FlowNetwork {
             if (sinkId != this.sourceId) {
 
                 this.sinkId = sinkId;
-                graph.addVertex(sinkId);
+                addVertex(sinkId);
 
             } //end if
 
             else {
 
                 this.sinkId = sinkId;
-                graph.addVertex(sinkId);
+                addVertex(sinkId);
                 this.sourceId = -1;
 
             } //end else
@@ -418,30 +420,104 @@ public class FlowNetwork {
 
     } //end removeEdge
 
+    /**
+     * Chooses the engine minimumCut uses when none is given.
+     * @param engine the maximum flow engine
+     */
+    public void setMaxFlowEngine(MaxFlowEngine engine) {
+
+        graph.setMaxFlowEngine(engine);
+
+    } //end setMaxFlowEngine
+
+    public MaxFlowEngine getMaxFlowEngine() {
+
+        return graph.getMaxFlowEngine();
+
+    } //end getMaxFlowEngine
+
     public LinkedList<FlowEdge> goldbergTarjan(int s, int t) {
 
+        return goldbergTarjan(s, t, "FIFO");
+
+    } //end goldbergTarjan
+
+    /**
+     * Computes a maximum s-t flow with the push-relabel algorithm and stores it on
+     * the edges.
+     * @param s the source
+     * @param t the sink
+     * @param selection the rule for picking the next active vertex, "FIFO" or "HIGHEST LABEL"
+     * @return the edges of the minimum cut
+     */
+    public LinkedList<FlowEdge> goldbergTarjan(int s, int t, String selection) {
+
+        PushRelabel pushRelabel = new PushRelabel();
+        pushRelabel.setSelection(selection);
+        pushRelabel.setPhaseOne(false);
+
+        MinCut minCut = minimumCut(s, t, pushRelabel);
+
+        if (minCut != null) {
+
+            pushRelabel.storeFlow();
+            return minCut.getCutEdges();
+
+        } //end if
+
+        return null;
+
+    } //end goldbergTarjan
+
+    /**
+     * Computes a minimum s-t cut with the configured engine, without storing a flow
+     * on the edges.
+     * @param s the source
+     * @param t the sink
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(int s, int t) {
+
         setSource(s);
         setSink(t);
 
-        //StdOut.println("Source: " + s + ", Sink: " + t);
-
         if (this.getSource() >= 0 && this.getSink() >= 0) {
 
-            graph.resetFlow();
-            graph.resetFrom();
-            graph.buildResidualGraph();
-            graph.resetExcess(sourceId);
-            graph.initializeLabels(sourceId);
+            return graph.minCut(freeze(), sourceId, sinkId);
+
+        } //end if
 
-            int queueLength = graph.initialPush(sourceId, sinkId);
+        else {
+
+            // no valid source and sink
+
+        } //end else
+
+        return null;
 
-            while (queueLength > 0) {
+    } //end minimumCut
+
+    /**
+     * Computes a minimum s-t cut with the given engine, without storing a flow on
+     * the edges.
+     *
+     * A PushRelabel engine in its first phase finds the cut with the smallest
+     * possible sink side. BoykovKolmogorov and Dinic find the cut with the smallest
+     * possible source side.
+     * @param s the source
+     * @param t the sink
+     * @param engine the maximum flow engine
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(int s, int t, MaxFlowEngine engine) {
 
-                queueLength = graph.dischargeQueue();
+        setSource(s);
+        setSink(t);
 
-            } //end while
+        if (this.getSource() >= 0 && this.getSink() >= 0) {
 
-            return graph.minCut(sinkId, sourceId);
+            CompactGraph compact = freeze();
+            return engine.minimumCut(compact, compact.index(sourceId), compact.index(sinkId));
 
         } //end if
 
@@ -453,7 +529,32 @@ public class FlowNetwork {
 
         return null;
 
-    } //end goldbergTarjan
+    } //end minimumCut
+
+    /**
+     * Computes a minimum s-t cut with the given engine, starting from the flow it
+     * left on this network. Change capacities with FlowEdge.setCapacity between the
+     * calls; adding or removing a vertex or an edge makes the engine start over.
+     * @param s the source
+     * @param t the sink
+     * @param engine the maximum flow engine
+     * @return the minimum cut
+     */
+    public MinCut resumeMinimumCut(int s, int t, MaxFlowEngine engine) {
+
+        setSource(s);
+        setSink(t);
+
+        if (this.getSource() >= 0 && this.getSink() >= 0) {
+
+            CompactGraph compact = freeze();
+            return engine.resumeMinimumCut(compact, compact.index(sourceId), compact.index(sinkId));
+
+        } //end if
+
+        return null;
+
+    } //end resumeMinimumCut
 
     public Map<Integer, FlowVertex> getVertices() {
 
@@ -473,17 +574,34 @@ public class FlowNetwork {
 
     } //end getMaxVertexId
 
-    public LinkedList<FlowEdge> getEdges() {
+    /**
+     * Returns the compressed sparse row form of the network. The snapshot is kept
+     * until the version of the graph changes, that is until the next vertex or edge
+     * is added or removed. A capacity changed with FlowEdge.setCapacity is written
+     * through to the snapshot, so it is seen without freezing again.
+     * @return the compact graph
+     */
+    public CompactGraph freeze() {
 
-        LinkedList<FlowEdge> edges = new LinkedList<>();
+        if (frozen == null || frozenVersion != graph.getVersion()) {
 
-        for (Map.Entry<Integer, FlowVertex> entry : graph.getVertices().entrySet()) {
+            frozen = new CompactGraph(graph.getVertices());
+            frozenVersion = graph.getVersion();
 
-            for (FlowEdge edge : entry.getValue().getAllEdges()) {
+        } //end if
 
-                edges.add(edge);
+        return frozen;
 
-            } //end for
+    } //end freeze
+
+    public LinkedList<FlowEdge> getEdges() {
+
+        CompactGraph compact = freeze();
+        LinkedList<FlowEdge> edges = new LinkedList<>();
+
+        for (int e = 0; e < compact.getNumEdges(); e++) {
+
+            edges.add(compact.getEdge(e));
 
         } //end for
 
@@ -493,26 +611,25 @@ public class FlowNetwork {
 
     public double[] getEdgeCapacities() {
 
-        LinkedList<FlowEdge> edges = getEdges();
-        double[] edgeCapacities = new double[edges.size()];
-        int i = 0;
-
-        ListIterator<FlowEdge> it = edges.listIterator();
-
-        while (it.hasNext()) {
+        return freeze().getCapacities();
 
-            edgeCapacities[i] = it.next().getCapacity();
-            i++;
+    } //end getEdgeCapacities
 
-        } //end while
+    /**
+     * Returns an edge by its index. The indices are the edge order of freeze, so they
+     * stay the same until a vertex or an edge is added or removed.
+     * @param e the index of the edge, from 0 to getNumEdges() - 1
+     * @return the edge
+     */
+    public FlowEdge getEdge(int e) {
 
-        return edgeCapacities;
+        return freeze().getEdge(e);
 
-    } //end getEdgeCapacities
+    } //end getEdge
 
     public int getNumEdges() {
 
-        return getEdges().size();
+        return graph.getNumEdges();
 
     } //end getNumEdges
 
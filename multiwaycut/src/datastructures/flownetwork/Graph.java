@@ -1,29 +1,35 @@
 package datastructures.flownetwork;
 
 import library.StdOut;
-import utility.BreadthFirstSearch;
-import utility.MinCutReachability;
 
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.ListIterator;
 import java.util.Map;
 
 /**
  * Created by Bloch-Hansen on 2017-01-23.
+ *
+ * The number of edges and the largest vertex id are kept up to date as vertices and
+ * edges are added and removed, and every such change moves the version on by one,
+ * so anything derived from the structure knows when to build itself again.
  */
 public class Graph {
 
     private static final String NEWLINE = System.getProperty("line.separator");
 
     private Map<Integer, FlowVertex> vertices;
-    private LinkedList<FlowVertex> queue;
-    private FlowVertex startVertex;
-    private FlowVertex endVertex;
+
+    private MaxFlowEngine engine;
+
+    private int numEdges;
+    private int maxId;
+    private boolean maxIdStale;
+    private long version;
 
     public Graph() {
 
         this.vertices = new LinkedHashMap<>();
+        this.engine = new PushRelabel();
+        this.maxId = -1;
 
     } //end Graph
 
@@ -32,6 +38,8 @@ public class Graph {
         if (!vertices.containsKey(id)) {
 
             vertices.put(id, new FlowVertex(id));
+            maxId = Math.max(maxId, id);
+            version++;
             return true;
 
         } //end if
@@ -49,9 +57,19 @@ public class Graph {
         if (vertices.containsKey(id)) {
 
             boolean success = true;
+            numEdges -= vertices.get(id).getAllEdges().size() + vertices.get(id).getAllResEdges().size();
             success = success && vertices.get(id).removeAllEdges();
             success = success && vertices.get(id).removeAllResEdges();
             vertices.remove(id);
+
+            // Only removing the largest id makes the search for the next largest necessary
+            if (id == maxId) {
+
+                maxIdStale = true;
+
+            } //end if
+
+            version++;
             return success;
 
         } //end if
@@ -85,6 +103,14 @@ public class Graph {
         FlowVertex endVertex = vertices.get(vertexId2);
 
         boolean success = startVertex.addEdge(endVertex, capacity);
+
+        if (success) {
+
+            numEdges++;
+            version++;
+
+        } //end if
+
         success = success && endVertex.addResEdge(startVertex);
 
         return success;
@@ -100,7 +126,15 @@ public class Graph {
         FlowVertex endVertex = vertices.get(vertexId2);
 
         FlowEdge retEdge = startVertex.addEdge(endVertex, capacity, edge);
-        boolean success = endVertex.addResEdge(startVertex);
+
+        // An edge that was already there is not listed at its end vertex a second time
+        if (retEdge != null) {
+
+            endVertex.addResEdge(startVertex);
+            numEdges++;
+            version++;
+
+        } //end if
 
         return retEdge;
 
@@ -118,6 +152,8 @@ public class Graph {
             if (success) {
 
                 endVertex.removeResEdge(startVertex);
+                numEdges--;
+                version++;
                 return true;
 
             } //end if
@@ -138,153 +174,6 @@ public class Graph {
 
     } //end removeEdge
 
-    public boolean resetFlow() {
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            if (!entry.getValue().resetFlow()) {
-
-                return false;
-
-            } //end if
-
-        } //end for
-
-        return true;
-
-    } //end resetFlow
-
-    public void resetFrom() {
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            entry.getValue().resetFrom();
-
-        } //end for
-
-    } //end resetFrom
-
-    public boolean resetExcess(int startVertexId) {
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            entry.getValue().resetExcess();
-
-            if (entry.getValue().id() == startVertexId) {
-
-                entry.getValue().setExcess(-1);
-
-            } //end if
-
-        } //end for
-
-        return true;
-
-    } //end resetExcess
-
-    public boolean initializeLabels(int startVertexId){
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            entry.getValue().resetLabel();
-
-            if (entry.getValue().id() == startVertexId) {
-
-                entry.getValue().setLabel(this.vertices.size());
-
-            } //end if
-
-        } //end for
-
-        return true;
-
-    } //end initializeLabels
-
-    public void buildResidualGraph() {
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            entry.getValue().clearResAdjacencyList();
-            entry.getValue().setDead(false);
-
-        } //end for
-
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            entry.getValue().addEdgesToResGraph();
-
-        } //end for
-
-    } //end buildResidualGraph
-
-    public int initialPush(int startVertexId, int endVertexId) {
-
-        startVertex = vertices.get(startVertexId);
-        endVertex = vertices.get(endVertexId);
-        queue = new LinkedList<>();
-
-        LinkedList<FlowEdge> startEdges = startVertex.getAllEdges();
-        ListIterator<FlowEdge> it = startEdges.listIterator();
-
-        while (it.hasNext()) {
-
-            FlowVertex newVertex = it.next().pushFlowForward();
-
-            if (newVertex != null && newVertex != startVertex && newVertex != endVertex) {
-
-                queue.add(newVertex);
-
-            } //end if
-
-        } //end while
-
-        startEdges = startVertex.getAllResEdges();
-        it = startEdges.listIterator();
-
-        while (it.hasNext()) {
-
-            FlowVertex newVertex = it.next().pushResFlowForward();
-
-            if (newVertex != null && newVertex != startVertex && newVertex != endVertex) {
-
-                queue.add(newVertex);
-
-            } //end if
-
-        } //end while
-
-        return queue.size();
-
-    } //end initialPush
-
-    public int dischargeQueue() {
-
-        FlowVertex headVertex = queue.removeFirst();
-        headVertex.resetEdge();
-
-        while (headVertex.getExcess() > 0 && !headVertex.labelIncreased()) {
-            //StdOut.println("HEAD VERTEX: " + headVertex.vertexToString());
-            FlowVertex newVertex = headVertex.pushRelabel(startVertex.id());
-
-            if (newVertex != null && newVertex != startVertex && newVertex != endVertex) {
-                //StdOut.println("Added to queue: " + newVertex.vertexToString());
-                queue.add(newVertex);
-
-            } //end if
-
-        } //end while
-
-        if (headVertex.getExcess() > 0) {
-            //StdOut.println("Added to queue22: " + headVertex.vertexToString() + " Source: " + startVertex.id() + ", Sink: " + endVertex.id());
-            headVertex.resetIncreasedLabel();
-            queue.add(headVertex);
-
-        } //end if
-
-        return queue.size();
-
-    } //end dischargeQueue
-
     public int getOutFlow(int vertexId) {
 
         return vertices.get(vertexId).getOutFlow();
@@ -297,12 +186,6 @@ public class Graph {
 
     } //end getInFlow
 
-    public double getExcess(int vertexId) {
-
-        return vertices.get(vertexId).getExcess();
-
-    } //end getExcess
-
     public String graphToString() {
 
         StringBuilder s = new StringBuilder();
@@ -317,69 +200,80 @@ public class Graph {
 
     } //end graphToString
 
-    public LinkedList<FlowEdge> minCut(int sinkId, int sourceId) {
+    /**
+     * Chooses the engine minCut uses.
+     * @param engine the maximum flow engine
+     */
+    public void setMaxFlowEngine(MaxFlowEngine engine) {
 
-        BreadthFirstSearch bfs = new BreadthFirstSearch(vertices, new MinCutReachability());
-        bfs.search(sourceId, false);
+        this.engine = engine;
 
-        Map<Integer, Boolean> marked = bfs.getMarked();
-        LinkedList<FlowEdge> minCut = new LinkedList<>();
+    } //end setMaxFlowEngine
 
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
+    public MaxFlowEngine getMaxFlowEngine() {
 
-            for (FlowEdge edge : entry.getValue().getAllEdges()) {
+        return engine;
 
-                if ((entry.getValue() == edge.getStartVertex()) && (marked.get(edge.getStartVertex().id())) &&
-                        (!marked.get(edge.getEndVertex().id()))) {
+    } //end getMaxFlowEngine
 
-                    //StdOut.println("ADDED EDGE: " + edge.edgeToString());
-                    minCut.add(edge);
+    /**
+     * Computes a minimum cut between two vertices with the configured engine.
+     * @param compact the frozen form of this graph
+     * @param sourceId the id of the source
+     * @param sinkId the id of the sink
+     * @return the minimum cut
+     */
+    public MinCut minCut(CompactGraph compact, int sourceId, int sinkId) {
 
-                } //end if
+        return engine.minimumCut(compact, compact.index(sourceId), compact.index(sinkId));
 
-            } //end for
+    } //end minCut
 
-            for (FlowEdge edge : entry.getValue().getAllResEdges()) {
+    public Map<Integer, FlowVertex> getVertices() {
 
-                if ((entry.getValue() == edge.getEndVertex()) && (marked.get(edge.getEndVertex().id())) &&
-                        (!marked.get(edge.getStartVertex().id()))) {
+        return vertices;
 
-                    //StdOut.println("ADDED EDGE: " + edge.edgeToString());
-                    minCut.add(edge);
+    } //end getVertices
 
-                } //end if
+    public int getMaxVertexId() {
 
-            } //end for
+        if (maxIdStale) {
 
-        } //end for
+            maxId = -1;
 
-        return minCut;
+            for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
 
-    } //end minCut
+                if (entry.getValue().id() > maxId) {
 
-    public Map<Integer, FlowVertex> getVertices() {
+                    maxId = entry.getValue().id();
 
-        return vertices;
+                } //end if
 
-    } //end getVertices
+            } //end for
 
-    public int getMaxVertexId() {
+            maxIdStale = false;
+
+        } //end if
 
-        int maxId = -1;
+        return maxId;
 
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
+    } //end getMaxVertexId
 
-            if (entry.getValue().id() > maxId) {
+    public int getNumEdges() {
 
-                maxId = entry.getValue().id();
+        return numEdges;
 
-            } //end if
+    } //end getNumEdges
 
-        } //end for
+    /**
+     * Returns a number that changes whenever a vertex or an edge is added or removed.
+     * @return the version of the structure
+     */
+    public long getVersion() {
 
-        return maxId;
+        return version;
 
-    } //end getMaxVertexId
+    } //end getVersion
 
     public void test() {
 
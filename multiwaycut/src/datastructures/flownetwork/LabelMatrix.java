@@ -0,0 +1,204 @@
+package datastructures.flownetwork;
+
+import java.util.Arrays;
+
+/**
+ * LabelMatrix.java
+ *
+ * Course: CS4490Z
+ *
+ * A LabelMatrix holds a point of the k-simplex for every vertex, such as the labels
+ * of a relaxed multiway cut. The points are the rows of one n by k array stored row
+ * by row, so a pass over every label is a single sweep over memory. Rows are numbered
+ * in the order they are added and found from a vertex id through a dense array.
+ *
+ * Row r occupies getValues()[offset(r)] to getValues()[offset(r) + k - 1]. The
+ * backing array is replaced when rows are added, so fetch it again afterwards.
+ */
+public class LabelMatrix {
+
+    private static final int MIN_ROWS = 16;
+
+    private final int k;
+    private double[] values;
+    private int[] ids;
+    private int[] rows;
+    private int numRows;
+
+    /**
+     * Creates an empty matrix.
+     * @param k the number of labels
+     * @param expectedRows the number of rows to make room for
+     */
+    public LabelMatrix(int k, int expectedRows) {
+
+        this.k = k;
+        this.values = new double[Math.max(expectedRows, MIN_ROWS) * k];
+        this.ids = new int[Math.max(expectedRows, MIN_ROWS)];
+        this.rows = new int[0];
+
+    } //end LabelMatrix
+
+    /**
+     * Creates a copy of another matrix.
+     * @param other the matrix to copy
+     */
+    public LabelMatrix(LabelMatrix other) {
+
+        this.k = other.k;
+        this.values = Arrays.copyOf(other.values, other.numRows * k);
+        this.ids = Arrays.copyOf(other.ids, other.numRows);
+        this.rows = other.rows.clone();
+        this.numRows = other.numRows;
+
+    } //end LabelMatrix
+
+    public int getK() {
+
+        return k;
+
+    } //end getK
+
+    public int getNumRows() {
+
+        return numRows;
+
+    } //end getNumRows
+
+    /**
+     * Adds a row of zeros for a vertex.
+     * @param id the id of the vertex
+     * @return the new row
+     */
+    public int addRow(int id) {
+
+        if (contains(id)) {
+
+            throw new IllegalArgumentException("Vertex " + id + " already has a row");
+
+        } //end if
+
+        if (numRows == ids.length) {
+
+            ids = Arrays.copyOf(ids, 2 * ids.length);
+            values = Arrays.copyOf(values, ids.length * k);
+
+        } //end if
+
+        if (id >= rows.length) {
+
+            int oldLength = rows.length;
+            rows = Arrays.copyOf(rows, Math.max(id + 1, 2 * oldLength));
+            Arrays.fill(rows, oldLength, rows.length, -1);
+
+        } //end if
+
+        ids[numRows] = id;
+        rows[id] = numRows;
+
+        return numRows++;
+
+    } //end addRow
+
+    /**
+     * Adds a row for a vertex.
+     * @param id the id of the vertex
+     * @param labels the k labels of the vertex
+     * @return the new row
+     */
+    public int addRow(int id, double[] labels) {
+
+        int r = addRow(id);
+        System.arraycopy(labels, 0, values, offset(r), k);
+
+        return r;
+
+    } //end addRow
+
+    public boolean contains(int id) {
+
+        return id >= 0 && id < rows.length && rows[id] >= 0;
+
+    } //end contains
+
+    /**
+     * Returns the row of a vertex.
+     * @param id the id of the vertex
+     * @return the row, or -1 if the vertex has none
+     */
+    public int row(int id) {
+
+        return contains(id) ? rows[id] : -1;
+
+    } //end row
+
+    /**
+     * Returns the vertex of a row.
+     * @param r the row
+     * @return the id of the vertex
+     */
+    public int id(int r) {
+
+        return ids[r];
+
+    } //end id
+
+    public int offset(int r) {
+
+        return r * k;
+
+    } //end offset
+
+    public double get(int r, int j) {
+
+        return values[r * k + j];
+
+    } //end get
+
+    public void set(int r, int j, double value) {
+
+        values[r * k + j] = value;
+
+    } //end set
+
+    /**
+     * Returns the backing array, with the rows stored one after another.
+     * @return the labels of every row
+     */
+    public double[] getValues() {
+
+        return values;
+
+    } //end getValues
+
+    /**
+     * Copies the labels of one row.
+     * @param r the row
+     * @return the k labels of the row
+     */
+    public double[] getRow(int r) {
+
+        return Arrays.copyOfRange(values, r * k, r * k + k);
+
+    } //end getRow
+
+    /**
+     * Copies one label of every row.
+     * @param j the label
+     * @return label j of each row, in row order
+     */
+    public double[] getColumn(int j) {
+
+        double[] column = new double[numRows];
+
+        for (int r = 0; r < numRows; r++) {
+
+            column[r] = values[r * k + j];
+
+        } //end for
+
+        return column;
+
+    } //end getColumn
+
+} //end LabelMatrix
@@ -0,0 +1,643 @@
+package datastructures.flownetwork;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+
+/**
+ * MappedGraph.java
+ *
+ * Course: CS4490Z
+ *
+ * A MappedGraph keeps the compressed sparse row arrays of a graph and its terminals
+ * in a file and reads them through memory mapped buffers, so the topology and
+ * capacities of a graph larger than the heap live in the page cache. Only the
+ * working arrays of the engine that cuts it, one or two per vertex and arc, are on
+ * the heap.
+ *
+ * A graph file is written straight from an input file with stream, which reads the
+ * edges twice and never holds them on the heap: once to count them and to find the
+ * vertex ids, and once to write them. The arcs are then built inside the file.
+ * Like FlowNetwork.addEdge, stream leaves out self loops and every edge after the
+ * first between the same two vertices. Vertices are numbered in the order of their
+ * ids and edges in the order they are read. A graph already on the heap can be
+ * copied into a file with write.
+ *
+ * The file starts with a header of HEADER_INTS ints: the magic number, the format
+ * version, n, m, the length of the id table, the number of edge slots and k. The
+ * arrays follow one after another in the order terminals, vertex ids, id table,
+ * firstArc, arcHead, arcEdge, reverse, edgeTail, edgeHead, forwardArc, originals
+ * and capacities, all little endian. The edge arrays are sized by the slots, which
+ * leaves room for the edges stream found duplicated after it had counted them.
+ * Each array is mapped on its own, so no single mapping is larger than one array.
+ *
+ * The graph holds no FlowVertex or FlowEdge objects, so getEdge is not supported,
+ * and the cuts of a MappedGraph are read as edge indices. Capacities can be changed
+ * with setCapacity, which writes to the file.
+ */
+public class MappedGraph implements FlowGraph {
+
+    private static final int MAGIC = 0x4D574347;
+    private static final int FORMAT = 2;
+    private static final int HEADER_INTS = 8;
+
+    private final int numVertices;
+    private final int numEdges;
+    private final int k;
+
+    private final IntBuffer terminals;
+    private final IntBuffer vertexIds;
+    private final IntBuffer indices;
+    private final IntBuffer firstArc;
+    private final IntBuffer arcHead;
+    private final IntBuffer arcEdge;
+    private final IntBuffer reverse;
+    private final IntBuffer edgeTail;
+    private final IntBuffer edgeHead;
+    private final IntBuffer forwardArc;
+    private final IntBuffer origins;
+    private final DoubleBuffer capacities;
+
+    /**
+     * Reads the edges of a graph from where they are kept, such as an input file,
+     * and hands them to a visitor. Every call reads the same edges in the same order.
+     */
+    public interface EdgeSource {
+
+        void edges(EdgeVisitor visitor);
+
+    } //end EdgeSource
+
+    /**
+     * Receives the edges of a graph one at a time.
+     */
+    public interface EdgeVisitor {
+
+        /**
+         * Receives an edge.
+         * @param id1 the id of the start vertex
+         * @param id2 the id of the end vertex
+         * @param capacity the capacity of the edge
+         */
+        void edge(int id1, int id2, double capacity);
+
+    } //end EdgeVisitor
+
+    /**
+     * Maps the arrays of a graph file.
+     * @param channel the open file
+     * @param mode READ_ONLY or READ_WRITE
+     */
+    private MappedGraph(FileChannel channel, FileChannel.MapMode mode) throws IOException {
+
+        IntBuffer header = map(channel, mode, 0, 4L * HEADER_INTS).asIntBuffer();
+
+        if (header.get(0) != MAGIC || header.get(1) != FORMAT) {
+
+            throw new IllegalArgumentException("Not a mapped graph file");
+
+        } //end if
+
+        this.numVertices = header.get(2);
+        this.numEdges = header.get(3);
+        this.k = header.get(6);
+
+        int idLength = header.get(4);
+        int slots = header.get(5);
+        long position = 4L * HEADER_INTS;
+
+        this.terminals = map(channel, mode, position, 4L * k).asIntBuffer();
+        position += 4L * k;
+        this.vertexIds = map(channel, mode, position, 4L * numVertices).asIntBuffer();
+        position += 4L * numVertices;
+        this.indices = map(channel, mode, position, 4L * idLength).asIntBuffer();
+        position += 4L * idLength;
+        this.firstArc = map(channel, mode, position, 4L * (numVertices + 1)).asIntBuffer();
+        position += 4L * (numVertices + 1);
+        this.arcHead = map(channel, mode, position, 8L * slots).asIntBuffer();
+        position += 8L * slots;
+        this.arcEdge = map(channel, mode, position, 8L * slots).asIntBuffer();
+        position += 8L * slots;
+        this.reverse = map(channel, mode, position, 8L * slots).asIntBuffer();
+        position += 8L * slots;
+        this.edgeTail = map(channel, mode, position, 4L * slots).asIntBuffer();
+        position += 4L * slots;
+        this.edgeHead = map(channel, mode, position, 4L * slots).asIntBuffer();
+        position += 4L * slots;
+        this.forwardArc = map(channel, mode, position, 4L * slots).asIntBuffer();
+        position += 4L * slots;
+        this.origins = map(channel, mode, position, 4L * slots).asIntBuffer();
+        position += 4L * slots;
+        this.capacities = map(channel, mode, position, 8L * slots).asDoubleBuffer();
+
+    } //end MappedGraph
+
+    /**
+     * Opens a graph file written by write or stream. The mappings stay valid after
+     * the file is closed, so the graph needs no closing.
+     * @param file the graph file
+     * @param writable whether setCapacity may be used
+     * @return the mapped graph
+     */
+    public static MappedGraph open(Path file, boolean writable) throws IOException {
+
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+
+            return new MappedGraph(channel, mode);
+
+        } //end try
+
+    } //end open
+
+    /**
+     * Writes the header of a new graph file and maps its arrays for writing.
+     * @param channel the open file, empty
+     * @param n the number of vertices
+     * @param slots the number of edges to make room for
+     * @param idLength the length of the id table, one more than the largest id
+     * @param terminals the ids of the terminals
+     * @return the mapped graph, with m equal to slots
+     */
+    private static MappedGraph create(FileChannel channel, int n, int slots, int idLength,
+                                      LinkedList<Integer> terminals) throws IOException {
+
+        if (8L * slots > Integer.MAX_VALUE) {
+
+            throw new IllegalArgumentException("Too many edges to map: " + slots);
+
+        } //end if
+
+        IntBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, 4L * HEADER_INTS).asIntBuffer();
+        header.put(0, MAGIC);
+        header.put(1, FORMAT);
+        header.put(2, n);
+        header.put(3, slots);
+        header.put(4, idLength);
+        header.put(5, slots);
+        header.put(6, terminals.size());
+
+        MappedGraph graph = new MappedGraph(channel, FileChannel.MapMode.READ_WRITE);
+
+        for (int i = 0; i < terminals.size(); i++) {
+
+            graph.terminals.put(i, terminals.get(i));
+
+        } //end for
+
+        for (int id = 0; id < idLength; id++) {
+
+            graph.indices.put(id, -1);
+
+        } //end for
+
+        return graph;
+
+    } //end create
+
+    /**
+     * Opens a new graph file, replacing the file if it exists.
+     * @param file the graph file
+     * @return the open file
+     */
+    private static FileChannel createFile(Path file) throws IOException {
+
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    } //end createFile
+
+    /**
+     * Writes the arrays of a graph to a file, replacing the file if it exists, and
+     * maps the file.
+     * @param graph the graph to store
+     * @param terminals the ids of the terminals
+     * @param file the graph file
+     * @return the mapped graph, writable
+     */
+    public static MappedGraph write(FlowGraph graph, LinkedList<Integer> terminals, Path file) throws IOException {
+
+        int n = graph.getNumVertices();
+        int m = graph.getNumEdges();
+        int idLength = 0;
+
+        for (int v = 0; v < n; v++) {
+
+            idLength = Math.max(idLength, graph.id(v) + 1);
+
+        } //end for
+
+        try (FileChannel channel = createFile(file)) {
+
+            MappedGraph mapped = create(channel, n, m, idLength, terminals);
+
+            for (int v = 0; v < n; v++) {
+
+                mapped.vertexIds.put(v, graph.id(v));
+                mapped.indices.put(graph.id(v), v);
+                mapped.firstArc.put(v, graph.firstArc(v));
+
+            } //end for
+
+            mapped.firstArc.put(n, n > 0 ? graph.lastArc(n - 1) : 0);
+
+            for (int a = 0; a < 2 * m; a++) {
+
+                mapped.arcHead.put(a, graph.arcHead(a));
+                mapped.arcEdge.put(a, graph.arcEdge(a));
+                mapped.reverse.put(a, graph.reverse(a));
+
+            } //end for
+
+            for (int e = 0; e < m; e++) {
+
+                mapped.edgeTail.put(e, graph.edgeTail(e));
+                mapped.edgeHead.put(e, graph.edgeHead(e));
+                mapped.forwardArc.put(e, graph.forwardArc(e));
+                mapped.origins.put(e, graph.originalEdge(e));
+                mapped.capacities.put(e, graph.capacity(e));
+
+            } //end for
+
+            channel.force(false);
+
+            return mapped;
+
+        } //end try
+
+    } //end write
+
+    /**
+     * Writes a graph to a file straight from the source of its edges, replacing the
+     * file if it exists, and maps the file. The edges are read twice and are never
+     * held on the heap; the heap only holds a bit per vertex id and, while duplicate
+     * edges are found, an int per vertex.
+     * @param source the edges of the graph
+     * @param terminals the ids of the terminals
+     * @param file the graph file
+     * @return the mapped graph, writable
+     */
+    public static MappedGraph stream(EdgeSource source, LinkedList<Integer> terminals, Path file) throws IOException {
+
+        BitSet ids = new BitSet();
+        int[] slots = new int[1];
+
+        // The first pass finds the vertices and counts the edges
+        source.edges((id1, id2, capacity) -> {
+
+            if (id1 >= 0 && id2 >= 0) {
+
+                ids.set(id1);
+                ids.set(id2);
+
+                if (keeps(id1, id2, capacity)) {
+
+                    slots[0]++;
+
+                } //end if
+
+            } //end if
+
+        });
+
+        try (FileChannel channel = createFile(file)) {
+
+            MappedGraph created = create(channel, ids.cardinality(), slots[0], ids.length(), terminals);
+            int[] e = new int[1];
+            int v = 0;
+
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+
+                created.vertexIds.put(v, id);
+                created.indices.put(id, v);
+                v++;
+
+            } //end for
+
+            // The second pass writes the edges
+            source.edges((id1, id2, capacity) -> {
+
+                if (id1 >= 0 && id2 >= 0 && keeps(id1, id2, capacity) && e[0] < slots[0]) {
+
+                    created.edgeTail.put(e[0], created.indices.get(id1));
+                    created.edgeHead.put(e[0], created.indices.get(id2));
+                    created.capacities.put(e[0], capacity);
+                    e[0]++;
+
+                } //end if
+
+            });
+
+            if (e[0] != slots[0]) {
+
+                throw new IllegalStateException("The edges changed between the two passes");
+
+            } //end if
+
+            created.fillArcs(slots[0]);
+            int m = created.removeDuplicates(slots[0]);
+            MappedGraph mapped = created;
+
+            if (m < slots[0]) {
+
+                created.fillArcs(m);
+                map(channel, FileChannel.MapMode.READ_WRITE, 0, 4L * HEADER_INTS).asIntBuffer().put(3, m);
+                mapped = new MappedGraph(channel, FileChannel.MapMode.READ_WRITE);
+
+            } //end if
+
+            for (int i = 0; i < m; i++) {
+
+                mapped.origins.put(i, i);
+
+            } //end for
+
+            channel.force(false);
+
+            return mapped;
+
+        } //end try
+
+    } //end stream
+
+    /**
+     * Decides whether an edge is kept, the way FlowNetwork.addEdge does.
+     * @param id1 the id of the start vertex
+     * @param id2 the id of the end vertex
+     * @param capacity the capacity of the edge
+     * @return true unless the edge is a self loop or has a negative capacity
+     */
+    private static boolean keeps(int id1, int id2, double capacity) {
+
+        return id1 != id2 && capacity >= 0;
+
+    } //end keeps
+
+    /**
+     * Counts the degrees of the first m edges into firstArc, turns them into offsets and
+     * fills both arcs of every edge, pairing each arc with its twin. The arcs of a
+     * vertex are in the order of their edges. firstArc serves as the cursor of every
+     * row while the arcs are filled and is shifted back afterwards.
+     * @param m the number of edges
+     */
+    private void fillArcs(int m) {
+
+        for (int v = 0; v <= numVertices; v++) {
+
+            firstArc.put(v, 0);
+
+        } //end for
+
+        for (int e = 0; e < m; e++) {
+
+            firstArc.put(edgeTail.get(e) + 1, firstArc.get(edgeTail.get(e) + 1) + 1);
+            firstArc.put(edgeHead.get(e) + 1, firstArc.get(edgeHead.get(e) + 1) + 1);
+
+        } //end for
+
+        for (int v = 0; v < numVertices; v++) {
+
+            firstArc.put(v + 1, firstArc.get(v + 1) + firstArc.get(v));
+
+        } //end for
+
+        for (int e = 0; e < m; e++) {
+
+            int tail = edgeTail.get(e);
+            int head = edgeHead.get(e);
+            int a = firstArc.get(tail);
+            int b = firstArc.get(head);
+
+            firstArc.put(tail, a + 1);
+            firstArc.put(head, b + 1);
+
+            arcHead.put(a, head);
+            arcEdge.put(a, e);
+            arcHead.put(b, tail);
+            arcEdge.put(b, e);
+
+            reverse.put(a, b);
+            reverse.put(b, a);
+            forwardArc.put(e, a);
+
+        } //end for
+
+        for (int v = numVertices; v > 0; v--) {
+
+            firstArc.put(v, firstArc.get(v - 1));
+
+        } //end for
+
+        firstArc.put(0, 0);
+
+    } //end fillArcs
+
+    /**
+     * Removes every edge after the first between the same two vertices, in either
+     * direction, and moves the edges that stay to the front of the edge arrays. The
+     * arcs of the first m edges must be filled, and must be filled again afterwards
+     * if any edge was removed.
+     * @param m the number of edges
+     * @return the number of edges that stay
+     */
+    private int removeDuplicates(int m) {
+
+        int[] seen = new int[numVertices];
+        BitSet duplicates = new BitSet(m);
+
+        Arrays.fill(seen, -1);
+
+        // The arcs of a row are in edge order, so the first arc to a vertex has the first edge
+        for (int v = 0; v < numVertices; v++) {
+
+            for (int a = firstArc.get(v); a < firstArc.get(v + 1); a++) {
+
+                if (seen[arcHead.get(a)] == v) {
+
+                    duplicates.set(arcEdge.get(a));
+
+                } //end if
+
+                else {
+
+                    seen[arcHead.get(a)] = v;
+
+                } //end else
+
+            } //end for
+
+        } //end for
+
+        if (duplicates.isEmpty()) {
+
+            return m;
+
+        } //end if
+
+        int kept = 0;
+
+        for (int e = duplicates.nextClearBit(0); e < m; e = duplicates.nextClearBit(e + 1)) {
+
+            edgeTail.put(kept, edgeTail.get(e));
+            edgeHead.put(kept, edgeHead.get(e));
+            capacities.put(kept, capacities.get(e));
+            kept++;
+
+        } //end for
+
+        return kept;
+
+    } //end removeDuplicates
+
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    } //end map
+
+    public int getNumVertices() {
+
+        return numVertices;
+
+    } //end getNumVertices
+
+    public int getNumEdges() {
+
+        return numEdges;
+
+    } //end getNumEdges
+
+    public int getK() {
+
+        return k;
+
+    } //end getK
+
+    /**
+     * Returns the ids of the terminals, in the order they were given.
+     * @return the terminals
+     */
+    public LinkedList<Integer> getTerminals() {
+
+        LinkedList<Integer> list = new LinkedList<>();
+
+        for (int i = 0; i < k; i++) {
+
+            list.add(terminals.get(i));
+
+        } //end for
+
+        return list;
+
+    } //end getTerminals
+
+    public int index(int id) {
+
+        if (id < 0 || id >= indices.limit()) {
+
+            return -1;
+
+        } //end if
+
+        return indices.get(id);
+
+    } //end index
+
+    public int id(int v) {
+
+        return vertexIds.get(v);
+
+    } //end id
+
+    public int firstArc(int v) {
+
+        return firstArc.get(v);
+
+    } //end firstArc
+
+    public int lastArc(int v) {
+
+        return firstArc.get(v + 1);
+
+    } //end lastArc
+
+    public int arcHead(int a) {
+
+        return arcHead.get(a);
+
+    } //end arcHead
+
+    public int arcEdge(int a) {
+
+        return arcEdge.get(a);
+
+    } //end arcEdge
+
+    public int reverse(int a) {
+
+        return reverse.get(a);
+
+    } //end reverse
+
+    public int forwardArc(int e) {
+
+        return forwardArc.get(e);
+
+    } //end forwardArc
+
+    public int edgeTail(int e) {
+
+        return edgeTail.get(e);
+
+    } //end edgeTail
+
+    public int edgeHead(int e) {
+
+        return edgeHead.get(e);
+
+    } //end edgeHead
+
+    public double capacity(int e) {
+
+        return capacities.get(e);
+
+    } //end capacity
+
+    /**
+     * Changes the capacity of an edge in the file. An engine sees the change on its
+     * next call, as it would a change made with FlowEdge.setCapacity.
+     * @param e the edge
+     * @param capacity the new capacity
+     */
+    public void setCapacity(int e, double capacity) {
+
+        capacities.put(e, capacity);
+
+    } //end setCapacity
+
+    public int originalEdge(int e) {
+
+        return origins.get(e);
+
+    } //end originalEdge
+
+    public FlowEdge getEdge(int e) {
+
+        throw new UnsupportedOperationException("A MappedGraph holds no FlowEdge objects");
+
+    } //end getEdge
+
+} //end MappedGraph
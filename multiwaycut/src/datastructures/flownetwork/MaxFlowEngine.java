@@ -0,0 +1,49 @@
+package datastructures.flownetwork;
+
+/**
+ * MaxFlowEngine.java
+ *
+ * Course: CS4490Z
+ *
+ * A MaxFlowEngine computes minimum s-t cuts on a FlowGraph. An engine owns its
+ * residual network and working arrays, and keeps them while it is handed the same
+ * FlowGraph, so a caller that cuts the same network many times only pays for
+ * the allocation once. Capacities are read from the edges again on every call.
+ *
+ * An engine is not safe to share between threads. Give every thread its own, for
+ * example with copy.
+ */
+public interface MaxFlowEngine {
+
+    /**
+     * Computes a maximum flow from the source to the sink and returns a minimum cut.
+     * @param graph the network to cut
+     * @param source the index of the source in the graph
+     * @param sink the index of the sink in the graph
+     * @return the minimum cut
+     */
+    MinCut minimumCut(FlowGraph graph, int source, int sink);
+
+    /**
+     * Computes a minimum cut again after the capacities of some edges have changed,
+     * starting from the flow the last call left on the same graph. An engine that
+     * cannot resume, or has no flow on this graph between the same vertices, computes
+     * the cut from scratch.
+     * @param graph the network to cut
+     * @param source the index of the source in the graph
+     * @param sink the index of the sink in the graph
+     * @return the minimum cut
+     */
+    default MinCut resumeMinimumCut(FlowGraph graph, int source, int sink) {
+
+        return minimumCut(graph, source, sink);
+
+    } //end resumeMinimumCut
+
+    /**
+     * Creates an engine with the same settings and none of the working state.
+     * @return the new engine
+     */
+    MaxFlowEngine copy();
+
+} //end MaxFlowEngine
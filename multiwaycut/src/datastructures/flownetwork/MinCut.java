@@ -0,0 +1,165 @@
+package datastructures.flownetwork;
+
+import java.util.BitSet;
+import java.util.LinkedList;
+
+/**
+ * MinCut.java
+ *
+ * Course: CS4490Z
+ *
+ * A MinCut is the result of a minimum s-t cut computation. It holds the weight of
+ * the cut and the set of vertices on the source side, as a bitset over the vertex
+ * indices of the FlowGraph the cut was computed on. The edges of the cut are
+ * kept as a bitset over the edge indices, found the first time they are asked for,
+ * so testing whether an edge is in the cut takes constant time.
+ */
+public class MinCut {
+
+    private final FlowGraph graph;
+    private final BitSet sourceSide;
+    private final double value;
+    private BitSet cutEdges;
+
+    public MinCut(FlowGraph graph, BitSet sourceSide, double value) {
+
+        this.graph = graph;
+        this.sourceSide = sourceSide;
+        this.value = value;
+
+    } //end MinCut
+
+    public FlowGraph getGraph() {
+
+        return graph;
+
+    } //end getGraph
+
+    /**
+     * Returns the vertices on the source side, indexed by compact vertex index.
+     * @return the source side of the cut
+     */
+    public BitSet getSourceSide() {
+
+        return sourceSide;
+
+    } //end getSourceSide
+
+    public double getValue() {
+
+        return value;
+
+    } //end getValue
+
+    /**
+     * Returns whether a vertex is on the source side of the cut.
+     * @param id the id of the vertex
+     * @return true if the vertex is on the source side
+     */
+    public boolean isSourceSide(int id) {
+
+        int v = graph.index(id);
+        return v >= 0 && sourceSide.get(v);
+
+    } //end isSourceSide
+
+    /**
+     * Returns the edges with one endpoint on each side of the cut, indexed by compact
+     * edge index.
+     * @return the edges of the cut
+     */
+    public BitSet getCutEdgeSet() {
+
+        if (cutEdges == null) {
+
+            cutEdges = new BitSet(graph.getNumEdges());
+
+            for (int e = 0; e < graph.getNumEdges(); e++) {
+
+                if (sourceSide.get(graph.edgeTail(e)) != sourceSide.get(graph.edgeHead(e))) {
+
+                    cutEdges.set(e);
+
+                } //end if
+
+            } //end for
+
+        } //end if
+
+        return cutEdges;
+
+    } //end getCutEdgeSet
+
+    /**
+     * Returns whether an edge is in the cut.
+     * @param e the index of the edge
+     * @return true if the endpoints of the edge are on different sides
+     */
+    public boolean containsEdge(int e) {
+
+        return getCutEdgeSet().get(e);
+
+    } //end containsEdge
+
+    /**
+     * Returns whether an edge of the network is in the cut.
+     * @param edge the edge
+     * @return true if the endpoints of the edge are on different sides
+     */
+    public boolean containsEdge(FlowEdge edge) {
+
+        return isSourceSide(edge.getStartVertex().id()) != isSourceSide(edge.getEndVertex().id());
+
+    } //end containsEdge
+
+    /**
+     * Lists the edges with one endpoint on each side of the cut, in edge order.
+     * @return the edges of the cut
+     */
+    public LinkedList<FlowEdge> getCutEdges() {
+
+        return edgeList(graph, getCutEdgeSet());
+
+    } //end getCutEdges
+
+    /**
+     * Lists the edges of a compact graph in a bitset, in edge order.
+     * @param graph the compact graph
+     * @param edges the edge indices
+     * @return the edges
+     */
+    public static LinkedList<FlowEdge> edgeList(FlowGraph graph, BitSet edges) {
+
+        LinkedList<FlowEdge> list = new LinkedList<>();
+
+        for (int e = edges.nextSetBit(0); e >= 0; e = edges.nextSetBit(e + 1)) {
+
+            list.add(graph.getEdge(e));
+
+        } //end for
+
+        return list;
+
+    } //end edgeList
+
+    /**
+     * Sums the capacities of the edges of a graph in a bitset, in edge order.
+     * @param graph the graph
+     * @param edges the edge indices
+     * @return the total capacity of the edges
+     */
+    public static double edgeWeight(FlowGraph graph, BitSet edges) {
+
+        double weight = 0.0;
+
+        for (int e = edges.nextSetBit(0); e >= 0; e = edges.nextSetBit(e + 1)) {
+
+            weight += graph.capacity(e);
+
+        } //end for
+
+        return weight;
+
+    } //end edgeWeight
+
+} //end MinCut
@@ -0,0 +1,171 @@
+package datastructures.flownetwork;
+
+/**
+ * NeighbourIndex.java
+ *
+ * Course: CS4490Z
+ *
+ * A NeighbourIndex maps the id of a neighbour to the edge that joins a vertex to it.
+ * It is an open addressing hash table with linear probing over primitive int keys,
+ * kept at most half full. Removing an entry shifts the entries after it back into
+ * the gap, so no deleted markers are left behind to slow later lookups.
+ */
+public class NeighbourIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private FlowEdge[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates an empty index with room for a number of neighbours.
+     * @param expected the number of neighbours expected
+     */
+    public NeighbourIndex(int expected) {
+
+        int capacity = MIN_CAPACITY;
+
+        while (capacity < 2 * expected) {
+
+            capacity *= 2;
+
+        } //end while
+
+        this.keys = new int[capacity];
+        this.values = new FlowEdge[capacity];
+        this.mask = capacity - 1;
+
+    } //end NeighbourIndex
+
+    public int size() {
+
+        return size;
+
+    } //end size
+
+    /**
+     * Returns the edge to a neighbour.
+     * @param id the id of the neighbour
+     * @return the edge, or null if there is none
+     */
+    public FlowEdge get(int id) {
+
+        for (int i = slot(id); values[i] != null; i = (i + 1) & mask) {
+
+            if (keys[i] == id) {
+
+                return values[i];
+
+            } //end if
+
+        } //end for
+
+        return null;
+
+    } //end get
+
+    /**
+     * Stores the edge to a neighbour, replacing any edge stored for it before.
+     * @param id the id of the neighbour
+     * @param edge the edge
+     */
+    public void put(int id, FlowEdge edge) {
+
+        if (2 * (size + 1) > values.length) {
+
+            grow();
+
+        } //end if
+
+        int i = slot(id);
+
+        while (values[i] != null && keys[i] != id) {
+
+            i = (i + 1) & mask;
+
+        } //end while
+
+        if (values[i] == null) {
+
+            size++;
+
+        } //end if
+
+        keys[i] = id;
+        values[i] = edge;
+
+    } //end put
+
+    /**
+     * Removes the edge to a neighbour.
+     * @param id the id of the neighbour
+     */
+    public void remove(int id) {
+
+        int i = slot(id);
+
+        while (values[i] != null && keys[i] != id) {
+
+            i = (i + 1) & mask;
+
+        } //end while
+
+        if (values[i] == null) {
+
+            return;
+
+        } //end if
+
+        values[i] = null;
+        size--;
+
+        // Move back every entry of the run that would no longer be found past the gap
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+
+            int home = slot(keys[j]);
+
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+
+                keys[i] = keys[j];
+                values[i] = values[j];
+                values[j] = null;
+                i = j;
+
+            } //end if
+
+        } //end for
+
+    } //end remove
+
+    private int slot(int id) {
+
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+
+    } //end slot
+
+    private void grow() {
+
+        int[] oldKeys = keys;
+        FlowEdge[] oldValues = values;
+
+        keys = new int[2 * oldKeys.length];
+        values = new FlowEdge[2 * oldValues.length];
+        mask = keys.length - 1;
+        size = 0;
+
+        for (int i = 0; i < oldValues.length; i++) {
+
+            if (oldValues[i] != null) {
+
+                put(oldKeys[i], oldValues[i]);
+
+            } //end if
+
+        } //end for
+
+    } //end grow
+
+} //end NeighbourIndex
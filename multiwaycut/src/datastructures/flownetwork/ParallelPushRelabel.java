@@ -0,0 +1,608 @@
+package datastructures.flownetwork;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * ParallelPushRelabel.java
+ *
+ * Course: CS4490Z
+ *
+ * A synchronous parallel push-relabel algorithm. The run is a series of rounds, and
+ * every active vertex is discharged concurrently within a round:
+ *
+ * 1. Every active vertex pushes its excess along the arcs that are admissible under
+ *    the labels from the start of the round. An arc from v to w is admissible when
+ *    the label of v is one more than the label of w, so the twin arc is never
+ *    admissible at the same time. Each edge is therefore pushed on by at most one
+ *    of its endpoints, and its residual capacities need no locking. The excess a
+ *    vertex receives is added to a separate atomic counter.
+ * 2. Every vertex that still has excess is relabelled from the labels of the start
+ *    of the round. A neighbour relabelled in the same round only gets a higher label,
+ *    so the new labels stay valid.
+ * 3. The new labels and the received excess are applied, and the vertices that
+ *    received excess or kept some form the next set of active vertices.
+ *
+ * The global relabel is a level synchronous breadth first search, where each level
+ * is expanded in parallel and a vertex is claimed by an atomic compare and set.
+ * Like PushRelabel, only the first phase runs by default.
+ */
+public class ParallelPushRelabel implements MaxFlowEngine {
+
+    private static final int SEQUENTIAL_CUTOFF = 256;
+
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    private ResidualNetwork residual;
+    private FlowGraph graph;
+    private int n;
+
+    private int[] labels;
+    private int[] newLabels;
+    private double[] excess;
+    private AtomicLongArray received;
+    private AtomicIntegerArray stamp;
+    private int round;
+    private int source;
+    private int sink;
+
+    private int[] active;
+    private int numActive;
+    private int[] next;
+    private AtomicInteger numNext;
+
+    private boolean phaseOne;
+    private double globalRelabelFrequency;
+    private AtomicInteger relabels;
+    private int relabelLimit;
+
+    public ParallelPushRelabel() {
+
+        this(Runtime.getRuntime().availableProcessors());
+
+    } //end ParallelPushRelabel
+
+    public ParallelPushRelabel(int threads) {
+
+        if (threads < 1) {
+
+            throw new IllegalArgumentException("Choose at least one thread");
+
+        } //end if
+
+        this.threads = threads;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.phaseOne = true;
+        this.globalRelabelFrequency = 1.0;
+        this.numNext = new AtomicInteger();
+        this.relabels = new AtomicInteger();
+
+    } //end ParallelPushRelabel
+
+    /**
+     * Creates an engine that runs its rounds on the worker threads of another engine.
+     */
+    private ParallelPushRelabel(ParallelPushRelabel other) {
+
+        this.threads = other.threads;
+        this.pool = other.pool;
+        this.phaseOne = other.phaseOne;
+        this.globalRelabelFrequency = other.globalRelabelFrequency;
+        this.numNext = new AtomicInteger();
+        this.relabels = new AtomicInteger();
+
+    } //end ParallelPushRelabel
+
+    public int getThreads() {
+
+        return threads;
+
+    } //end getThreads
+
+    /**
+     * Sets how often the labels are recomputed from scratch. A global relabel runs
+     * before the first round and then once frequency * n relabels have been done,
+     * where n is the number of vertices. A frequency of 0 turns global relabelling off.
+     * @param frequency the number of relabels between global relabels, as a multiple of n
+     */
+    public void setGlobalRelabelFrequency(double frequency) {
+
+        if (frequency < 0.0) {
+
+            throw new IllegalArgumentException("Choose a non-negative global relabel frequency");
+
+        } //end if
+
+        this.globalRelabelFrequency = frequency;
+
+    } //end setGlobalRelabelFrequency
+
+    /**
+     * Chooses whether to stop after the first phase of push-relabel, as in PushRelabel.
+     * @param phaseOne true to stop after the first phase
+     */
+    public void setPhaseOne(boolean phaseOne) {
+
+        this.phaseOne = phaseOne;
+
+    } //end setPhaseOne
+
+    /**
+     * Computes a minimum cut with parallel push-relabel.
+     * @param graph the network to cut
+     * @param source the index of the source in the graph
+     * @param sink the index of the sink in the graph
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(FlowGraph graph, int source, int sink) {
+
+        resetFlow(graph);
+        initialize(source, sink);
+
+        while (numActive > 0) {
+
+            if (globalRelabelFrequency > 0.0 && relabels.get() >= relabelLimit) {
+
+                globalRelabel();
+
+            } //end if
+
+            else {
+
+                pulse();
+
+            } //end else
+
+        } //end while
+
+        if (phaseOne) {
+
+            BitSet sourceSide = residual.reachable(sink, true);
+            sourceSide.flip(0, n);
+
+            return new MinCut(graph, sourceSide, excess[sink]);
+
+        } //end if
+
+        return new MinCut(graph, residual.reachable(source, false), excess[sink]);
+
+    } //end minimumCut
+
+    /**
+     * Creates an engine with the same settings that shares the worker threads of this
+     * one, so copies that cut different networks at the same time start no new threads.
+     * @return the new engine
+     */
+    public MaxFlowEngine copy() {
+
+        return new ParallelPushRelabel(this);
+
+    } //end copy
+
+    /**
+     * Copies the net flow of the last run onto the edges.
+     */
+    public void storeFlow() {
+
+        residual.storeFlow();
+
+    } //end storeFlow
+
+    /**
+     * Stops the worker threads, which are shared with the copies of this engine. The
+     * engine runs on the calling thread afterwards.
+     */
+    public void shutdown() {
+
+        if (pool != null) {
+
+            pool.shutdown();
+
+        } //end if
+
+    } //end shutdown
+
+    private void resetFlow(FlowGraph compact) {
+
+        if (residual == null || graph != compact) {
+
+            graph = compact;
+            n = compact.getNumVertices();
+            residual = new ResidualNetwork(compact);
+            labels = new int[n];
+            newLabels = new int[n];
+            excess = new double[n];
+            received = new AtomicLongArray(n);
+            stamp = new AtomicIntegerArray(n);
+            active = new int[n];
+            next = new int[n];
+
+        } //end if
+
+        else {
+
+            residual.reset();
+
+        } //end else
+
+    } //end resetFlow
+
+    /**
+     * Saturates every arc leaving the source. The labels are set by the global
+     * relabel that runs before the first round.
+     */
+    private void initialize(int source, int sink) {
+
+        this.source = source;
+        this.sink = sink;
+
+        Arrays.fill(excess, 0.0);
+        numActive = 0;
+        relabelLimit = (int) Math.ceil(globalRelabelFrequency * n);
+        relabels.set(relabelLimit);
+
+        for (int a = graph.firstArc(source); a < graph.lastArc(source); a++) {
+
+            double delta = residual.residual(a);
+
+            if (delta > 0) {
+
+                residual.push(a, delta);
+                excess[source] -= delta;
+                excess[graph.arcHead(a)] += delta;
+
+            } //end if
+
+        } //end for
+
+        // Without global relabelling the labels start at 0, with the source at n
+        if (globalRelabelFrequency == 0.0) {
+
+            Arrays.fill(labels, 0);
+            labels[source] = n;
+            refileActive();
+
+        } //end if
+
+        else {
+
+            globalRelabel();
+
+        } //end else
+
+    } //end initialize
+
+    /**
+     * Runs one round: push, relabel, then apply the new labels and the received excess.
+     */
+    private void pulse() {
+
+        final int r = ++round;
+        numNext.set(0);
+
+        forEach(active, numActive, v -> pushExcess(v, r));
+        forEach(active, numActive, v -> relabel(v, r));
+        forEach(active, numActive, v -> labels[v] = newLabels[v]);
+
+        int size = numNext.get();
+
+        forEach(next, size, v -> excess[v] += takeReceived(v));
+        excess[source] += takeReceived(source);
+        excess[sink] += takeReceived(sink);
+
+        int[] swap = active;
+        active = next;
+        next = swap;
+        numActive = size;
+
+    } //end pulse
+
+    /**
+     * Pushes the excess of a vertex along the arcs that are admissible under the
+     * labels from the start of the round. The labels are compared before the
+     * residual capacity is read, so an arc the other endpoint is pushing on is never read.
+     * @param v the index of the vertex
+     * @param r the current round
+     */
+    private void pushExcess(int v, int r) {
+
+        if (excess[v] <= 0 || !canActivate(v)) {
+
+            return;
+
+        } //end if
+
+        double e = excess[v];
+        int d = labels[v];
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v) && e > 0; a++) {
+
+            int w = graph.arcHead(a);
+
+            if (labels[w] == d - 1 && residual.residual(a) > 0) {
+
+                double delta = Math.min(e, residual.residual(a));
+
+                residual.push(a, delta);
+                e -= delta;
+                addReceived(w, delta);
+
+                if (w != source && w != sink) {
+
+                    claim(w, r);
+
+                } //end if
+
+            } //end if
+
+        } //end for
+
+        excess[v] = e;
+
+    } //end pushExcess
+
+    /**
+     * Gives a vertex that still has excess the smallest label that makes one of its
+     * residual arcs admissible. The new label is only applied after the round. A
+     * vertex with no residual arc below 2n - 1 only holds rounding error, as in
+     * PushRelabel, so its excess is dropped and it is lifted to 2n - 1.
+     * @param v the index of the vertex
+     * @param r the current round
+     */
+    private void relabel(int v, int r) {
+
+        newLabels[v] = labels[v];
+
+        if (excess[v] <= 0 || !canActivate(v)) {
+
+            return;
+
+        } //end if
+
+        int newLabel = Integer.MAX_VALUE;
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            if (residual.residual(a) > 0 && labels[graph.arcHead(a)] + 1 < newLabel) {
+
+                newLabel = labels[graph.arcHead(a)] + 1;
+
+            } //end if
+
+        } //end for
+
+        relabels.incrementAndGet();
+
+        if (newLabel > 2 * n - 1) {
+
+            newLabels[v] = 2 * n - 1;
+            excess[v] = 0;
+            return;
+
+        } //end if
+
+        newLabels[v] = newLabel;
+
+        claim(v, r);
+
+    } //end relabel
+
+    /**
+     * Sets every label to the exact residual distance to the sink, or n plus the
+     * residual distance to the source for vertices that cannot reach the sink, or
+     * 2n - 1 for vertices that can reach neither. The active vertices are found again.
+     */
+    private void globalRelabel() {
+
+        final int r = ++round;
+
+        Arrays.fill(labels, -1);
+        labels[sink] = 0;
+        labels[source] = n;
+        stamp.set(sink, r);
+        stamp.set(source, r);
+
+        reverseSearch(sink, r);
+        reverseSearch(source, r);
+
+        for (int v = 0; v < n; v++) {
+
+            if (labels[v] < 0) {
+
+                labels[v] = 2 * n - 1;
+
+            } //end if
+
+        } //end for
+
+        relabels.set(0);
+        refileActive();
+
+    } //end globalRelabel
+
+    /**
+     * Labels the unclaimed vertices that have a residual path to a root, one level
+     * of the breadth first search at a time.
+     * @param root the index of the vertex to search backwards from
+     * @param r the stamp that marks a claimed vertex
+     */
+    private void reverseSearch(int root, int r) {
+
+        int[] level = active;
+        int size = 1;
+
+        level[0] = root;
+
+        while (size > 0) {
+
+            numNext.set(0);
+
+            forEach(level, size, w -> {
+
+                for (int a = graph.firstArc(w); a < graph.lastArc(w); a++) {
+
+                    int u = graph.arcHead(a);
+
+                    // The twin arc runs from u to w
+                    if (residual.residual(graph.reverse(a)) > 0 && stamp.get(u) != r && claim(u, r)) {
+
+                        labels[u] = labels[w] + 1;
+
+                    } //end if
+
+                } //end for
+
+            });
+
+            size = numNext.get();
+
+            int[] swap = level;
+            level = next;
+            next = swap;
+
+        } //end while
+
+        active = level;
+
+    } //end reverseSearch
+
+    /**
+     * Makes every vertex with excess that can be discharged active.
+     */
+    private void refileActive() {
+
+        numActive = 0;
+
+        for (int v = 0; v < n; v++) {
+
+            if (excess[v] > 0 && canActivate(v)) {
+
+                active[numActive++] = v;
+
+            } //end if
+
+        } //end for
+
+    } //end refileActive
+
+    private boolean canActivate(int v) {
+
+        return v != source && v != sink && (!phaseOne || labels[v] < n);
+
+    } //end canActivate
+
+    /**
+     * Adds a vertex to the next list, unless it was already added in this round.
+     * @param v the index of the vertex
+     * @param r the current round
+     * @return true if this call added the vertex
+     */
+    private boolean claim(int v, int r) {
+
+        int old = stamp.get(v);
+
+        if (old != r && stamp.compareAndSet(v, old, r)) {
+
+            next[numNext.getAndIncrement()] = v;
+            return true;
+
+        } //end if
+
+        return false;
+
+    } //end claim
+
+    private void addReceived(int v, double delta) {
+
+        long old;
+        long sum;
+
+        do {
+
+            old = received.get(v);
+            sum = Double.doubleToRawLongBits(Double.longBitsToDouble(old) + delta);
+
+        } while (!received.compareAndSet(v, old, sum));
+
+    } //end addReceived
+
+    private double takeReceived(int v) {
+
+        return Double.longBitsToDouble(received.getAndSet(v, 0L));
+
+    } //end takeReceived
+
+    /**
+     * Runs a task on every vertex of a list, split between the worker threads.
+     * Short lists are run on the calling thread.
+     */
+    private void forEach(int[] vertices, int size, IntConsumer task) {
+
+        if (pool == null || pool.isShutdown() || size < SEQUENTIAL_CUTOFF) {
+
+            for (int i = 0; i < size; i++) {
+
+                task.accept(vertices[i]);
+
+            } //end for
+
+        } //end if
+
+        else {
+
+            pool.invoke(new Slice(vertices, 0, size, task));
+
+        } //end else
+
+    } //end forEach
+
+    private static class Slice extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] vertices;
+        private final int from;
+        private final int to;
+        private final IntConsumer task;
+
+        Slice(int[] vertices, int from, int to, IntConsumer task) {
+
+            this.vertices = vertices;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+
+        } //end Slice
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= SEQUENTIAL_CUTOFF) {
+
+                for (int i = from; i < to; i++) {
+
+                    task.accept(vertices[i]);
+
+                } //end for
+
+            } //end if
+
+            else {
+
+                int middle = (from + to) >>> 1;
+                invokeAll(new Slice(vertices, from, middle, task), new Slice(vertices, middle, to, task));
+
+            } //end else
+
+        } //end compute
+
+    } //end Slice
+
+} //end ParallelPushRelabel
@@ -0,0 +1,733 @@
+package datastructures.flownetwork;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * PushRelabel.java
+ *
+ * Course: CS4490Z
+ *
+ * The push-relabel algorithm of Goldberg and Tarjan. Active vertices are discharged
+ * in FIFO order or highest label first, each vertex keeps a current arc, the labels
+ * are recomputed from scratch by a global relabel every few relabels, and a gap in
+ * the labels lifts every vertex above it out of reach of the sink.
+ *
+ * By default only the first phase runs. It ends with a maximum preflow, and the
+ * minimum cut read off it has the smallest possible sink side. With the first phase
+ * turned off the run ends with a maximum flow, which storeFlow copies onto the
+ * edges, and the cut returned has the smallest possible source side.
+ */
+public class PushRelabel implements MaxFlowEngine {
+
+    // Excess smaller than this after a repair is taken to be rounding error
+    private static final double EPSILON = 1e-9;
+
+    private ResidualNetwork residual;
+    private FlowGraph graph;
+    private int n;
+
+    private int[] labels;
+    private int[] count;
+    private double[] excess;
+    private int[] current;
+    private int source;
+    private int sink;
+
+    private boolean highestLabel;
+    private boolean phaseOne;
+    private int numActive;
+    private int[] queue;
+    private int queueHead;
+    private int[] bucket;
+    private int[] nextActive;
+    private int highest;
+
+    private double globalRelabelFrequency;
+    private int relabels;
+    private int relabelLimit;
+    private int[] order;
+
+    public PushRelabel() {
+
+        this.highestLabel = false;
+        this.phaseOne = true;
+        this.globalRelabelFrequency = 1.0;
+
+    } //end PushRelabel
+
+    /**
+     * Chooses the order in which active vertices are discharged. "FIFO" keeps them
+     * in a queue. "HIGHEST LABEL" keeps them in buckets by label and always
+     * discharges a vertex with the highest label.
+     * @param selection the selection rule
+     */
+    public void setSelection(String selection) {
+
+        switch (selection) {
+
+            case "FIFO":
+
+                highestLabel = false;
+                break;
+
+            case "HIGHEST LABEL":
+
+                highestLabel = true;
+                break;
+
+            default:
+
+                throw new IllegalArgumentException("Unrecognized selection rule");
+
+        } //end switch
+
+    } //end setSelection
+
+    /**
+     * Sets how often the labels are recomputed from scratch. A global relabel runs
+     * before the first discharge and then after every frequency * n relabels, where
+     * n is the number of vertices. A frequency of 0 turns global relabelling off.
+     * @param frequency the number of relabels between global relabels, as a multiple of n
+     */
+    public void setGlobalRelabelFrequency(double frequency) {
+
+        if (frequency < 0.0) {
+
+            throw new IllegalArgumentException("Choose a non-negative global relabel frequency");
+
+        } //end if
+
+        this.globalRelabelFrequency = frequency;
+
+    } //end setGlobalRelabelFrequency
+
+    /**
+     * Chooses whether to stop after the first phase of push-relabel. In the first
+     * phase a vertex with a label of n or more cannot reach the sink, so it is
+     * never discharged. The run ends with a maximum preflow instead of a flow,
+     * which is enough to read off a minimum cut.
+     * @param phaseOne true to stop after the first phase
+     */
+    public void setPhaseOne(boolean phaseOne) {
+
+        this.phaseOne = phaseOne;
+
+    } //end setPhaseOne
+
+    /**
+     * Computes a minimum cut with push-relabel.
+     * @param graph the network to cut
+     * @param source the index of the source in the graph
+     * @param sink the index of the sink in the graph
+     * @return the minimum cut
+     */
+    public MinCut minimumCut(FlowGraph graph, int source, int sink) {
+
+        resetFlow(graph);
+        initialize(source, sink);
+
+        return run();
+
+    } //end minimumCut
+
+    /**
+     * Computes a minimum cut again after the capacities of some edges have changed.
+     * The flow of the last run is kept wherever it still fits. Edges whose capacity
+     * dropped below their flow give the excess back to their start vertex and leave
+     * a deficit at their end vertex, and each deficit is cancelled by taking flow
+     * off the arcs leaving it. The labels are then made exact by a global relabel and
+     * the discharges carry on from there.
+     * @param graph the network to cut
+     * @param source the index of the source in the graph
+     * @param sink the index of the sink in the graph
+     * @return the minimum cut
+     */
+    @Override
+    public MinCut resumeMinimumCut(FlowGraph graph, int source, int sink) {
+
+        // There is no flow to start from
+        if (residual == null || this.graph != graph || this.source != source || this.sink != sink) {
+
+            return minimumCut(graph, source, sink);
+
+        } //end if
+
+        repairFlow();
+        globalRelabel();
+
+        return run();
+
+    } //end resumeMinimumCut
+
+    /**
+     * Discharges active vertices until none are left and reads off the cut.
+     * @return the minimum cut
+     */
+    private MinCut run() {
+
+        while (numActive > 0) {
+
+            if (globalRelabelDue()) {
+
+                globalRelabel();
+
+            } //end if
+
+            else {
+
+                dischargeActive();
+
+            } //end else
+
+        } //end while
+
+        return phaseOne ? sinkSideCut() : sourceSideCut();
+
+    } //end run
+
+    public MaxFlowEngine copy() {
+
+        PushRelabel engine = new PushRelabel();
+        engine.highestLabel = highestLabel;
+        engine.phaseOne = phaseOne;
+        engine.globalRelabelFrequency = globalRelabelFrequency;
+
+        return engine;
+
+    } //end copy
+
+    /**
+     * Copies the net flow of the last run onto the edges. Only a run with the first
+     * phase turned off leaves a flow; after the first phase the edges would hold a preflow.
+     */
+    public void storeFlow() {
+
+        residual.storeFlow();
+
+    } //end storeFlow
+
+    /**
+     * Removes all flow from the network and sizes the arrays for a compact graph.
+     * The arrays are kept while the compact graph is the same.
+     * @param compact the network to cut
+     */
+    private void resetFlow(FlowGraph compact) {
+
+        if (residual == null || graph != compact) {
+
+            graph = compact;
+            n = compact.getNumVertices();
+            residual = new ResidualNetwork(compact);
+            labels = new int[n];
+            count = new int[2 * n];
+            excess = new double[n];
+            current = new int[n];
+            queue = new int[n];
+            bucket = new int[2 * n];
+            nextActive = new int[n];
+            order = new int[n];
+
+        } //end if
+
+        else {
+
+            residual.reset();
+
+        } //end else
+
+    } //end resetFlow
+
+    /**
+     * Sets the source label to n and every other label to 0, then saturates every
+     * arc leaving the source.
+     */
+    private void initialize(int source, int sink) {
+
+        this.source = source;
+        this.sink = sink;
+
+        Arrays.fill(excess, 0.0);
+        Arrays.fill(labels, 0);
+        labels[source] = n;
+
+        Arrays.fill(count, 0);
+        count[0] = n - 1;
+        count[n]++;
+
+        numActive = 0;
+        queueHead = 0;
+        highest = 0;
+        relabelLimit = (int) Math.ceil(globalRelabelFrequency * n);
+
+        // Make the labels exact before the first discharge
+        relabels = relabelLimit;
+
+        Arrays.fill(bucket, -1);
+
+        for (int v = 0; v < n; v++) {
+
+            current[v] = graph.firstArc(v);
+
+        } //end for
+
+        for (int a = graph.firstArc(source); a < graph.lastArc(source); a++) {
+
+            if (residual.residual(a) > 0) {
+
+                push(source, a, residual.residual(a));
+
+            } //end if
+
+        } //end for
+
+    } //end initialize
+
+    /**
+     * Reads the capacities from the edges again and turns the flow of the last run
+     * into a preflow that fits them. The arcs leaving the source are saturated again,
+     * so a vertex is only left short of flow where an edge into it lost capacity.
+     */
+    private void repairFlow() {
+
+        for (int e = 0; e < graph.getNumEdges(); e++) {
+
+            double capacity = graph.capacity(e);
+
+            if (capacity != residual.capacity(e)) {
+
+                double removed = residual.setCapacity(e, capacity);
+
+                excess[graph.edgeTail(e)] += removed;
+                excess[graph.edgeHead(e)] -= removed;
+
+            } //end if
+
+        } //end for
+
+        for (int a = graph.firstArc(source); a < graph.lastArc(source); a++) {
+
+            double delta = residual.residual(a);
+
+            if (delta > 0) {
+
+                residual.push(a, delta);
+                excess[source] -= delta;
+                excess[graph.arcHead(a)] += delta;
+
+            } //end if
+
+        } //end for
+
+        int deficits = 0;
+
+        for (int v = 0; v < n; v++) {
+
+            current[v] = graph.firstArc(v);
+
+            if (excess[v] < -EPSILON && v != source && v != sink) {
+
+                order[deficits++] = v;
+
+            } //end if
+
+        } //end for
+
+        while (deficits > 0) {
+
+            deficits = cancelDeficit(order[--deficits], deficits);
+
+        } //end while
+
+        for (int v = 0; v < n; v++) {
+
+            if (Math.abs(excess[v]) < EPSILON && v != source && v != sink) {
+
+                excess[v] = 0;
+
+            } //end if
+
+        } //end for
+
+    } //end repairFlow
+
+    /**
+     * Takes flow off the arcs leaving a vertex until it sends out no more than it
+     * receives. The flow it stops sending leaves a deficit at the heads of those arcs
+     * instead, unless they hold enough excess to cover it. Flow on an arc only ever
+     * goes down here, so the current arc of the vertex never has to go back.
+     * @param w the index of the vertex with a deficit
+     * @param deficits the number of vertices on the stack of deficits
+     * @return the number of vertices on the stack of deficits afterwards
+     */
+    private int cancelDeficit(int w, int deficits) {
+
+        // A deficit too small to move any flow would go round a cycle of flow for ever
+        while (excess[w] < -EPSILON && current[w] < graph.lastArc(w)) {
+
+            int a = current[w];
+            int u = graph.arcHead(a);
+            double flow = (residual.residual(graph.reverse(a)) - residual.residual(a)) / 2;
+
+            if (flow > 0) {
+
+                double delta = Math.min(-excess[w], flow);
+                boolean covered = excess[u] >= -EPSILON;
+
+                residual.push(graph.reverse(a), delta);
+                excess[w] += delta;
+                excess[u] -= delta;
+
+                if (covered && excess[u] < -EPSILON && u != source && u != sink) {
+
+                    order[deficits++] = u;
+
+                } //end if
+
+            } //end if
+
+            if (excess[w] < -EPSILON) {
+
+                current[w]++;
+
+            } //end if
+
+        } //end while
+
+        // Only rounding error can be left once every arc is empty
+        if (excess[w] < 0) {
+
+            excess[w] = 0;
+
+        } //end if
+
+        return deficits;
+
+    } //end cancelDeficit
+
+    private void dischargeActive() {
+
+        int v = removeActive();
+
+        discharge(v);
+
+        if (excess[v] > 0 && canActivate(v)) {
+
+            addActive(v);
+
+        } //end if
+
+    } //end dischargeActive
+
+    /**
+     * Pushes excess out of a vertex along admissible arcs, starting at its current
+     * arc. The current arc only moves past an arc once it is no longer admissible,
+     * and goes back to the first arc when the vertex is relabelled.
+     * @param v the index of the active vertex
+     */
+    private void discharge(int v) {
+
+        while (excess[v] > 0 && current[v] < graph.lastArc(v)) {
+
+            int a = current[v];
+
+            if (residual.residual(a) > 0 && labels[v] == labels[graph.arcHead(a)] + 1) {
+
+                push(v, a, Math.min(excess[v], residual.residual(a)));
+
+            } //end if
+
+            // A push that empties the vertex may leave the arc admissible
+            if (excess[v] > 0) {
+
+                current[v]++;
+
+            } //end if
+
+        } //end while
+
+        if (excess[v] > 0) {
+
+            int oldLabel = labels[v];
+
+            relabel(v);
+            relabels++;
+            current[v] = graph.firstArc(v);
+
+            // No vertex is left at the old label, so nothing above it can reach the sink
+            if (count[oldLabel] == 0 && oldLabel < n) {
+
+                gap(oldLabel, v);
+
+            } //end if
+
+        } //end if
+
+    } //end discharge
+
+    private void push(int v, int a, double delta) {
+
+        int w = graph.arcHead(a);
+
+        // The head becomes active when it first receives excess
+        if (excess[w] == 0 && canActivate(w)) {
+
+            addActive(w);
+
+        } //end if
+
+        residual.push(a, delta);
+        excess[v] -= delta;
+        excess[w] += delta;
+
+    } //end push
+
+    /**
+     * Lifts a vertex to one more than the lowest label it has a residual arc to.
+     * Excess always has a residual path back to the source, whose vertices are
+     * labelled below 2n - 1, so a vertex left with no such arc only holds rounding
+     * error. Its excess is dropped and it is lifted to 2n - 1, where it stays out of
+     * the way of the other vertices.
+     * @param v the index of the vertex
+     */
+    private void relabel(int v) {
+
+        int newLabel = Integer.MAX_VALUE;
+
+        for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+            if (residual.residual(a) > 0 && labels[graph.arcHead(a)] + 1 < newLabel) {
+
+                newLabel = labels[graph.arcHead(a)] + 1;
+
+            } //end if
+
+        } //end for
+
+        if (newLabel > 2 * n - 1) {
+
+            newLabel = 2 * n - 1;
+            excess[v] = 0;
+
+        } //end if
+
+        count[labels[v]]--;
+        labels[v] = newLabel;
+        count[newLabel]++;
+
+    } //end relabel
+
+    /**
+     * Lifts every vertex with a label between a gap and n to n. These vertices
+     * cannot reach the sink, so their excess can only go back to the source.
+     * @param gap the label that no vertex holds any more
+     * @param discharging the index of the vertex being discharged, which is not active
+     */
+    private void gap(int gap, int discharging) {
+
+        for (int v = 0; v < n; v++) {
+
+            if (labels[v] > gap && labels[v] < n) {
+
+                count[labels[v]]--;
+                labels[v] = n;
+                count[n]++;
+                current[v] = graph.firstArc(v);
+
+            } //end if
+
+        } //end for
+
+        refileActive(discharging);
+
+    } //end gap
+
+    private boolean globalRelabelDue() {
+
+        return globalRelabelFrequency > 0.0 && relabels >= relabelLimit;
+
+    } //end globalRelabelDue
+
+    /**
+     * Sets every label to the exact residual distance to the sink, found by a
+     * breadth first search backwards from the sink. Vertices that cannot reach
+     * the sink get n plus their residual distance to the source, and vertices
+     * that can reach neither get 2n - 1. The active vertices are added again
+     * under their new labels and every current arc goes back to the first arc.
+     */
+    private void globalRelabel() {
+
+        Arrays.fill(labels, -1);
+        labels[source] = n;
+        labels[sink] = 0;
+
+        reverseSearch(sink);
+        reverseSearch(source);
+
+        relabels = 0;
+
+        Arrays.fill(count, 0);
+
+        for (int v = 0; v < n; v++) {
+
+            if (labels[v] < 0) {
+
+                labels[v] = 2 * n - 1;
+
+            } //end if
+
+            count[labels[v]]++;
+            current[v] = graph.firstArc(v);
+
+        } //end for
+
+        refileActive(-1);
+
+    } //end globalRelabel
+
+    /**
+     * Rebuilds the set of active vertices after labels have changed, so every
+     * vertex sits in the bucket of its current label.
+     * @param skip the index of a vertex to leave out, or -1
+     */
+    private void refileActive(int skip) {
+
+        numActive = 0;
+        queueHead = 0;
+        highest = 0;
+
+        Arrays.fill(bucket, -1);
+
+        for (int v = 0; v < n; v++) {
+
+            if (excess[v] > 0 && v != skip && canActivate(v)) {
+
+                addActive(v);
+
+            } //end if
+
+        } //end for
+
+    } //end refileActive
+
+    /**
+     * Labels the unlabelled vertices that have a residual path to a root with the
+     * label of the root plus the length of the shortest such path.
+     * @param root the index of the vertex to search backwards from
+     */
+    private void reverseSearch(int root) {
+
+        int head = 0;
+        int tail = 0;
+
+        order[tail++] = root;
+
+        while (head < tail) {
+
+            int w = order[head++];
+
+            for (int a = graph.firstArc(w); a < graph.lastArc(w); a++) {
+
+                int u = graph.arcHead(a);
+
+                // The twin arc runs from u to w
+                if (labels[u] < 0 && residual.residual(graph.reverse(a)) > 0) {
+
+                    labels[u] = labels[w] + 1;
+                    order[tail++] = u;
+
+                } //end if
+
+            } //end for
+
+        } //end while
+
+    } //end reverseSearch
+
+    private boolean canActivate(int v) {
+
+        return v != source && v != sink && (!phaseOne || labels[v] < n);
+
+    } //end canActivate
+
+    /**
+     * Reads the minimum cut off a maximum preflow. The sink side is every vertex
+     * with a residual path to the sink, and the value of the cut is the excess
+     * that reached the sink.
+     * @return the minimum cut
+     */
+    private MinCut sinkSideCut() {
+
+        BitSet sourceSide = residual.reachable(sink, true);
+        sourceSide.flip(0, n);
+
+        return new MinCut(graph, sourceSide, excess[sink]);
+
+    } //end sinkSideCut
+
+    /**
+     * Reads the minimum cut off a maximum flow. The source side is every vertex
+     * the source reaches along residual arcs.
+     * @return the minimum cut
+     */
+    private MinCut sourceSideCut() {
+
+        return new MinCut(graph, residual.reachable(source, false), excess[sink]);
+
+    } //end sourceSideCut
+
+    private void addActive(int v) {
+
+        if (highestLabel) {
+
+            nextActive[v] = bucket[labels[v]];
+            bucket[labels[v]] = v;
+
+            if (labels[v] > highest) {
+
+                highest = labels[v];
+
+            } //end if
+
+        } //end if
+
+        else {
+
+            queue[(queueHead + numActive) % n] = v;
+
+        } //end else
+
+        numActive++;
+
+    } //end addActive
+
+    private int removeActive() {
+
+        int v;
+
+        if (highestLabel) {
+
+            while (bucket[highest] < 0) {
+
+                highest--;
+
+            } //end while
+
+            v = bucket[highest];
+            bucket[highest] = nextActive[v];
+
+        } //end if
+
+        else {
+
+            v = queue[queueHead];
+            queueHead = (queueHead + 1) % n;
+
+        } //end else
+
+        numActive--;
+        return v;
+
+    } //end removeActive
+
+} //end PushRelabel
@@ -0,0 +1,168 @@
+package datastructures.flownetwork;
+
+import java.util.BitSet;
+
+/**
+ * ResidualNetwork.java
+ *
+ * Course: CS4490Z
+ *
+ * A ResidualNetwork stores the residual capacity of every arc of a FlowGraph.
+ * An undirected edge of capacity c starts with c units of residual capacity on each
+ * of its two arcs. Pushing d units along an arc takes d from that arc and gives d
+ * to its twin, so no bookkeeping is needed to know which endpoint sent the flow.
+ *
+ * The net flow on edge e, measured from its start vertex to its end vertex, is its
+ * capacity minus the residual capacity of forwardArc(e). A negative value means the
+ * flow runs from the end vertex to the start vertex.
+ */
+public class ResidualNetwork {
+
+    private final FlowGraph graph;
+    private final double[] capacities;
+    private final double[] residual;
+
+    public ResidualNetwork(FlowGraph graph) {
+
+        this.graph = graph;
+        this.capacities = new double[graph.getNumEdges()];
+        this.residual = new double[2 * graph.getNumEdges()];
+
+        reset();
+
+    } //end ResidualNetwork
+
+    /**
+     * Removes all flow. Capacities are read from the edges again, so a capacity
+     * changed with FlowEdge.setCapacity is seen without freezing the network again.
+     */
+    public void reset() {
+
+        for (int e = 0; e < capacities.length; e++) {
+
+            int a = graph.forwardArc(e);
+
+            capacities[e] = graph.capacity(e);
+            residual[a] = capacities[e];
+            residual[graph.reverse(a)] = capacities[e];
+
+        } //end for
+
+    } //end reset
+
+    public FlowGraph getGraph() {
+
+        return graph;
+
+    } //end getGraph
+
+    public double capacity(int e) {
+
+        return capacities[e];
+
+    } //end capacity
+
+    /**
+     * Changes the capacity of an edge and keeps as much of its flow as the new
+     * capacity allows.
+     * @param e the edge
+     * @param capacity the new capacity
+     * @return the flow taken off the edge, from the start vertex to the end vertex
+     */
+    public double setCapacity(int e, double capacity) {
+
+        int a = graph.forwardArc(e);
+        double flow = flow(e);
+        double kept = Math.max(-capacity, Math.min(capacity, flow));
+
+        capacities[e] = capacity;
+        residual[a] = capacity - kept;
+        residual[graph.reverse(a)] = capacity + kept;
+
+        return flow - kept;
+
+    } //end setCapacity
+
+    public double residual(int a) {
+
+        return residual[a];
+
+    } //end residual
+
+    /**
+     * Sends flow along an arc.
+     * @param a the arc
+     * @param delta the amount of flow, at most residual(a)
+     */
+    public void push(int a, double delta) {
+
+        residual[a] -= delta;
+        residual[graph.reverse(a)] += delta;
+
+    } //end push
+
+    /**
+     * Returns the net flow on an edge.
+     * @param e the edge
+     * @return the flow from the start vertex to the end vertex, negative if it runs the other way
+     */
+    public double flow(int e) {
+
+        return capacities[e] - residual[graph.forwardArc(e)];
+
+    } //end flow
+
+    /**
+     * Finds the vertices joined to a root by a path of residual arcs.
+     * @param root the index of the root
+     * @param reverse false for the vertices the root reaches, true for the vertices that reach the root
+     * @return the vertices found, including the root
+     */
+    public BitSet reachable(int root, boolean reverse) {
+
+        BitSet marked = new BitSet(graph.getNumVertices());
+        int[] queue = new int[graph.getNumVertices()];
+        int head = 0;
+        int tail = 0;
+
+        marked.set(root);
+        queue[tail++] = root;
+
+        while (head < tail) {
+
+            int v = queue[head++];
+
+            for (int a = graph.firstArc(v); a < graph.lastArc(v); a++) {
+
+                int w = graph.arcHead(a);
+
+                // Searching backwards follows the twin arc from w to v
+                if (!marked.get(w) && residual[reverse ? graph.reverse(a) : a] > 0) {
+
+                    marked.set(w);
+                    queue[tail++] = w;
+
+                } //end if
+
+            } //end for
+
+        } //end while
+
+        return marked;
+
+    } //end reachable
+
+    /**
+     * Copies the net flow of every edge onto its FlowEdge.
+     */
+    public void storeFlow() {
+
+        for (int e = 0; e < capacities.length; e++) {
+
+            graph.getEdge(e).setFlow(flow(e));
+
+        } //end for
+
+    } //end storeFlow
+
+} //end ResidualNetwork
@@ -1,5 +1,7 @@
 package datastructures.linkcut;
 
+import java.util.ArrayDeque;
+
 /**
  * LinkCutTree.java
  *
@@ -13,9 +15,16 @@ package datastructures.linkcut;
  * are connected in the forrest by a middle child from a parent node to the
  * root of the disjointed tree, and the splay rotations only effect the left
  * and right children.
+ *
+ * Every node has a value, which is the cost of the edge to its parent. A root has
+ * no parent edge, so its value should be left at infinity. Every operation first
+ * exposes the path from a node to its root, which costs O(log n) amortized.
  */
 public class LinkCutTree implements LinkCutTreeInterface {
 
+    // The nodes from v up to the root of its splay tree, kept between splays
+    private final ArrayDeque<TreeNode> path = new ArrayDeque<>();
+
     /**
      * Finds and returns the root of the tree holding v.
      * @param v the node that we want to know the root of
@@ -23,13 +32,15 @@ public class LinkCutTree implements LinkCutTreeInterface {
      */
     public TreeNode findRoot(TreeNode v) {
 
-        splay(v);
+        access(v);
         TreeNode w = v;
+        w.pushDown();
 
-        // Descend to the rightmost child to find the root
-        while (w.getRight() != null) {
+        // Descend to the leftmost child to find the root
+        while (w.getLeft() != null) {
 
-            w = w.getRight();
+            w = w.getLeft();
+            w.pushDown();
 
         } //end while
 
@@ -39,13 +50,14 @@ public class LinkCutTree implements LinkCutTreeInterface {
     } //end findRoot
 
     /**
-     * Finds and returns the size of the tree holding v.
-     * @param v the node that we want to know the size of
-     * @return the size of that tree
+     * Finds and returns the number of nodes on the path from v to its root.
+     * @param v the node that we want to know the depth of
+     * @return the number of nodes on that path
      */
     public int findSize(TreeNode v) {
 
-        return findRoot(v).getSize();
+        access(v);
+        return v.getSize();
 
     } //findSize
 
@@ -54,7 +66,7 @@ public class LinkCutTree implements LinkCutTreeInterface {
      * @param v the node that we want to know the value of
      * @return the value of that node
      */
-    public int findValue(TreeNode v) {
+    public double findValue(TreeNode v) {
 
         splay(v);
         return v.getValue();
@@ -62,14 +74,41 @@ public class LinkCutTree implements LinkCutTreeInterface {
     } //end findValue
 
     /**
-     * Finds and returns the minimum value of a node and its descendants.
-     * @param v the node that we want to know the min value of
-     * @return the min value of that node
+     * Finds and returns the node with the minimum value on the path from v to its
+     * root. Ties go to the node closest to the root.
+     * @param v the node at the deep end of the path
+     * @return the node with the min value on that path
      */
     public TreeNode findMin(TreeNode v) {
 
-        splay(v);
-        TreeNode w = v.getMinValue();
+        access(v);
+        TreeNode w = v;
+
+        // Follow the subtree minimum, preferring the left side which is closer to the root
+        while (true) {
+
+            w.pushDown();
+
+            if (w.getLeft() != null && w.getLeft().getMin() == w.getMin()) {
+
+                w = w.getLeft();
+
+            } //end if
+
+            else if (w.getValue() == w.getMin()) {
+
+                break;
+
+            } //end else if
+
+            else {
+
+                w = w.getRight();
+
+            } //end else
+
+        } //end while
+
         splay(w);
         return w;
 
@@ -80,19 +119,24 @@ public class LinkCutTree implements LinkCutTreeInterface {
      * @param v the node that we want to change the value of
      * @param x the new value of the node
      */
-    public void changeValue(TreeNode v, int x) {
+    public void changeValue(TreeNode v, double x) {
 
         splay(v);
-        v.setValue(v.getValue() + x);
+        v.setValue(x);
 
-        // Update the left child's value accordingly
-        if (v.getLeft() != null) {
+    } //end changeValue
 
-            v.getLeft().setValue(v.getLeft().getValue() - x);
+    /**
+     * Adds an amount to the value of every node on the path from v to its root.
+     * @param v the node at the deep end of the path
+     * @param x the amount to add
+     */
+    public void addPath(TreeNode v, double x) {
 
-        } //end if
+        access(v);
+        v.addValue(x);
 
-    } //end changeValue
+    } //end addPath
 
     /**
      * Links the disjoint vertices v and w by making the middle child.
@@ -102,31 +146,59 @@ public class LinkCutTree implements LinkCutTreeInterface {
      */
     public void link(TreeNode v, TreeNode w) {
 
-        splay(v);
-        splay(w);
+        access(v);
         v.setParent(w);
 
     } //end link
 
     /**
-     * Deletes the edge between the vertex v and it's right child.
+     * Deletes the edge between the vertex v and its parent.
      * @param v the node that we want to cut
      */
     public void cut(TreeNode v) {
 
-        splay(v);
-        v.getRight().setValue(v.getRight().getValue() + v.getValue());
-        v.getRight().setParent(null);
-        v.setRight(null);
+        access(v);
+
+        if (v.getLeft() != null) {
+
+            v.getLeft().setParent(null);
+            v.setLeft(null);
+            v.updateCount();
+
+        } //end if
 
     } //end cut
 
+    /**
+     * Makes the path from the root to v a single splay tree with v at its root and
+     * no right child.
+     * @param v the node to expose
+     */
+    private void access(TreeNode v) {
+
+        TreeNode last = null;
+
+        for (TreeNode w = v; w != null; w = w.getParent()) {
+
+            splay(w);
+            w.setRight(last);
+            w.updateCount();
+            last = w;
+
+        } //end for
+
+        splay(v);
+
+    } //end access
+
     /**
      * Performs a series of rotations until a node becomes the root of the tree.
      * @param v the node that we want to rotate to the root
      */
     private void splay(TreeNode v) {
 
+        pushFromRoot(v);
+
         // Splay the node v up to the root of the tree
         while (!v.isRoot()) {
 
@@ -135,105 +207,67 @@ public class LinkCutTree implements LinkCutTreeInterface {
             // Only one rotation needed
             if (w.isRoot()) {
 
-                // Zig
-                if (w.getLeft() == v) {
-
-                    rotateRight(v);
-
-                } //end if
-
-                // Zig
-                else {
-
-                    rotateLeft(v);
-
-                } //end else
+                rotate(v);
 
             } //end if
 
-            // Multiple rotations needed
-            else {
-
-                TreeNode r = w.getParent();
-
-                if (r.getLeft() == v) {
-
-                    // Zig-Zig
-                    if (w.getLeft() == v) {
+            // Zig-Zig
+            else if ((w.getLeft() == v) == (w.getParent().getLeft() == w)) {
 
-                        rotateRight(w);
-                        rotateRight(v);
+                rotate(w);
+                rotate(v);
 
-                    } //end if
-
-                    // Zig-Zag
-                    else {
+            } //end else if
 
-                        rotateLeft(w);
-                        rotateRight(v);
+            // Zig-Zag
+            else {
 
-                    } //end else
+                rotate(v);
+                rotate(v);
 
-                } //end if
+            } //end else
 
-                else {
+        } //end while
 
-                    // Zig-Zig
-                    if (w.getRight() == v) {
+    } //end splay
 
-                        rotateLeft(w);
-                        rotateLeft(v);
+    /**
+     * Passes the pending amounts down from the root of the splay tree to v. The
+     * nodes on the way up are stacked first, since a splay tree can be as deep as
+     * the path it holds is long.
+     * @param v the node that is about to be splayed
+     */
+    private void pushFromRoot(TreeNode v) {
 
-                    } //end if
+        TreeNode w = v;
+        path.push(w);
 
-                    // Zig-Zag
-                    else {
+        while (!w.isRoot()) {
 
-                        rotateRight(v);
-                        rotateLeft(v);
+            w = w.getParent();
+            path.push(w);
 
-                    } //end else
+        } //end while
 
-                }//end else
+        while (!path.isEmpty()) {
 
-            } //end else
+            path.pop().pushDown();
 
         } //end while
 
-        v.updateCount();
-
-    } //end splay
+    } //end pushFromRoot
 
     /**
-     * Rotates the node v to the right and adjusts the node values.
-     * @param v the node that we want to rotate to the right
+     * Rotates the node v above its parent, keeping the left to right order.
+     * @param v the node that we want to rotate up
      */
-    private void rotateRight(TreeNode v) {
+    private void rotate(TreeNode v) {
 
         TreeNode w = v.getParent();
         TreeNode r = w.getParent();
 
-        // Stores the values before the rotations take place
-        int vValue = v.getValue();
-        int wValue = w.getValue();
-        int aValue = v.getLeft().getValue();
-        int bValue = v.getRight().getValue();
-        int cValue = w.getRight().getValue();
-
-        int aMin = v.getLeft().getMin();
-        int bMin = v.getRight().getMin();
-        int cMin = w.getRight().getMin();
-
-        if ((w.setLeft(v.getRight())) != null) {
-
-            w.getLeft().setParent(w);
-
-        } //end if
-
-        v.setRight(w);
-        w.setParent(v);
-
-        if ((v.setParent(v)) != null) {
+        // Attach v to the grandparent, or keep the middle child pointer
+        if (r != null) {
 
             if (r.getLeft() == w) {
 
@@ -249,71 +283,36 @@ public class LinkCutTree implements LinkCutTreeInterface {
 
         } //end if
 
-        // Adjust the edge costs after the rotation
-        v.setValue(vValue + wValue);
-        w.setValue(0 - vValue);
-        w.getLeft().setValue(vValue + bValue);
-        w.setMin(Math.max(Math.max(0, bMin - w.getLeft().getValue()), cMin - cValue));
-        v.setMin(Math.max(Math.max(0, aMin - aValue), w.getMin() - w.getValue()));
-
-        w.updateCount();
-
-    } //end rotateRight
-
-    /**
-     * Rotates the node v to the left and adjusts the node values.
-     * @param v the node that we want to rotate to the left
-     */
-    private void rotateLeft(TreeNode v) {
-
-        TreeNode w = v.getParent();
-        TreeNode r = w.getParent();
+        if (w.getLeft() == v) {
 
-        // Stores the values before the rotations take place
-        int vValue = v.getValue();
-        int wValue = w.getValue();
-        int aValue = w.getLeft().getValue();
-        int bValue = v.getLeft().getValue();
-        int cValue = v.getRight().getValue();
+            if (w.setLeft(v.getRight()) != null) {
 
-        int aMin = w.getLeft().getMin();
-        int bMin = v.getLeft().getMin();
-        int cMin = v.getRight().getMin();
+                w.getLeft().setParent(w);
 
-        if ((w.setRight(v.getLeft())) != null) {
+            } //end if
 
-            w.getRight().setParent(w);
+            v.setRight(w);
 
         } //end if
 
-        v.setLeft(w);
-        w.setParent(v);
-
-        if ((v.setParent(r)) != null) {
+        else {
 
-            if (r.getLeft() == w) {
+            if (w.setRight(v.getLeft()) != null) {
 
-                r.setRight(v);
+                w.getRight().setParent(w);
 
             } //end if
 
-            else if(r.getRight() == w) {
-
-                r.setRight(v);
-
-            } //end else if
+            v.setLeft(w);
 
-        } //end if
+        } //end else
 
-        // Adjust the edge costs after the rotation
-        v.setValue(vValue + wValue);
-        w.setValue(0 - vValue);
-        w.getRight().setValue(vValue + bValue);
-        w.setMin(Math.max(Math.max(0, bMin - w.getRight().getValue()), cMin - cValue));
-        v.setMin(Math.max(Math.max(0, aMin - aValue), w.getMin() - w.getValue()));
+        w.setParent(v);
+        v.setParent(r);
 
         w.updateCount();
+        v.updateCount();
 
-    } //end rotateLeft
+    } //end rotate
 
 } //end LinkCutTree
@@ -15,11 +15,13 @@ public interface LinkCutTreeInterface {
 
 	public int findSize(TreeNode v);
 
-	public int findValue(TreeNode v);
+	public double findValue(TreeNode v);
 
 	public TreeNode findMin(TreeNode v);
 
-	public void changeValue(TreeNode v, int x);
+	public void changeValue(TreeNode v, double x);
+
+	public void addPath(TreeNode v, double x);
 
 	public void link(TreeNode v, TreeNode w);
 
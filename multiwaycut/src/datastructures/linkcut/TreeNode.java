@@ -12,6 +12,11 @@ package datastructures.linkcut;
  * are connected in the forrest by a middle child from a parent node to the
  * root of the disjointed tree, and the splay rotations only effect the left
  * and right children.
+ *
+ * Each splay tree holds one path of the represented tree, ordered from the end
+ * closest to the root on the left to the deepest node on the right. A node keeps
+ * the minimum value in its splay subtree, and an amount still to be added to the
+ * values of its children, so a whole path can be changed in one step.
  */
 public class TreeNode {
 
@@ -20,40 +25,53 @@ public class TreeNode {
      */
     private TreeNode left, right, parent;
 
+    /**
+     * Identifies the node to the code that owns the tree.
+     */
+    private int id;
+
     /**
      * Represents the cost of the parent edge.
      */
-    private int value;
+    private double value;
 
     /**
      * Represents the minimum cost of this node and any of its descendants.
      */
-    private int min;
+    private double min;
+
+    /**
+     * The amount still to be added to both subtrees of this node.
+     */
+    private double pending;
 
     /**
      * Keeps track of the size of each tree.
      */
-    private int size, mySize;
+    private int size;
+
+    public TreeNode(int id) {
+
+        this(id, Double.POSITIVE_INFINITY);
 
-    public TreeNode(int v) {
+    } //end TreeNode
+
+    public TreeNode(int id, double v) {
 
         left = right = parent = null;
+        this.id = id;
         value = v;
         min = v;
-        size = mySize = 1;
+        pending = 0.0;
+        size = 1;
 
-    } //end Node
+    } //end TreeNode
 
-    public TreeNode(TreeNode v) {
+    public int id() {
 
-        left = v.getLeft();
-        right = v.getRight();
-        parent = v.getParent();
-        value = v.getValue();
-        min = v.getMin();
-        size = v.getSize();
+        return id;
 
-    } //end TreeNode
+    } //end id
 
     /**
      * Determines if a node is the root of its subtree.
@@ -67,22 +85,13 @@ public class TreeNode {
     } //end isRoot
 
     /**
-     * Finds and returns the value of the node v.
-     * @return the value of node v
+     * Finds and returns the value of the node. The value is only up to date when
+     * no ancestor in the splay tree has a pending amount.
+     * @return the value of the node
      */
-    public int getValue() {
-
-        if (this.isRoot()) {
-
-            return value;
-
-        } //end if
-
-        else {
+    public double getValue() {
 
-            return value - parent.getValue();
-
-        } //end else
+        return value;
 
     } //end getValue
 
@@ -90,43 +99,59 @@ public class TreeNode {
      * Sets the value of a node.
      * @param x the new value of a node
      */
-    public void setValue(int x) {
+    public void setValue(double x) {
 
         value = x;
+        updateCount();
 
     } //end setValue
 
     /**
-     * Finds and returns the min value of the tree holding this node.
-     * @return the min value of the tree holding this node
+     * Finds and returns the min value of this node and its splay descendants.
+     * @return the min value
      */
-    public int getMin() {
+    public double getMin() {
 
-        return value - this.getMinValue().getValue();
+        return min;
 
     } //end getMin
 
     /**
-     * Sets the min value of the tree holding this node
-     * @param x the min value of the tree holding this node
+     * Adds an amount to this node and every node below it in its splay tree.
+     * @param x the amount to add
      */
-    public void setMin(int x) {
+    public void addValue(double x) {
 
-        min = x;
+        value += x;
+        min += x;
+        pending += x;
 
-    } //end setMin
+    } //end addValue
 
     /**
-     * Calculates the min value of a node and any of its descendants.
-     * @return the node with the min value
+     * Passes the pending amount of this node down to its children.
      */
-    public TreeNode getMinValue() {
+    public void pushDown() {
+
+        if (pending != 0.0) {
+
+            if (left != null) {
+
+                left.addValue(pending);
+
+            } //end if
+
+            if (right != null) {
 
-        TreeNode minNode = this;
-        minNode = preorder(this, minNode);
-        return minNode;
+                right.addValue(pending);
 
-    } //end getMinValue
+            } //end if
+
+            pending = 0.0;
+
+        } //end if
+
+    } //end pushDown
 
     /**
      * Finds and returns the left child of a node.
@@ -202,60 +227,24 @@ public class TreeNode {
     } //end getSize
 
     /**
-     * Sets the size of the current subtree.
-     * @param x the new size of the current subtree
-     */
-    public void setSize(int x) {
-
-        size = x;
-
-    } //end setSize
-
-    /**
-     * Traverses the tree in preorder to find the minimum node value.
-     * @param v the current node to visit
-     * @param minNode the node with the minimum value so far
-     * @return the node with the minimum value found
-     */
-    private TreeNode preorder(TreeNode v, TreeNode minNode) {
-
-        // Base case
-        if (v == null) {
-
-            return minNode;
-
-        } //end if
-
-        // Check if this node has a smaller value
-        if (v.getValue() < minNode.getValue()) {
-
-            minNode = v;
-
-        } //end if
-
-        minNode = preorder(v.getLeft(), minNode);
-        minNode = preorder(v.getRight(), minNode);
-
-        return minNode;
-
-    } //end preorder
-
-    /**
-     * Updates the size of the current subtree.
+     * Updates the size and the min value of the current subtree from its children.
      */
     public void updateCount() {
 
-        size = mySize;
+        size = 1;
+        min = value;
 
         if (left != null) {
 
             size += left.getSize();
+            min = Math.min(min, left.getMin());
 
         } //end if
 
         if (right != null) {
 
             size += right.getSize();
+            min = Math.min(min, right.getMin());
 
         } //end if
 
@@ -4,9 +4,11 @@ import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowVertex;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by Bloch-Hansen on 2017-05-21.
@@ -21,6 +23,7 @@ public class BreadthFirstSearch {
 
     private LinkedList<FlowVertex> bfs;
     private LinkedList<FlowEdge> edges;
+    private Set<FlowEdge> seen;
 
     private int nodeCount;
 
@@ -73,6 +76,7 @@ public class BreadthFirstSearch {
     public void search(boolean shuffle) {
 
         edges = new LinkedList<>();
+        seen = new HashSet<>();
 
         while (!bfs.isEmpty()) {
 
@@ -88,7 +92,7 @@ public class BreadthFirstSearch {
 
                 FlowVertex end = edge.getEndVertex();
 
-                if (!edges.contains(edge)) {
+                if (seen.add(edge)) {
 
                     edges.add(edge);
 
@@ -111,7 +115,7 @@ public class BreadthFirstSearch {
 
                 FlowVertex end = edge.getStartVertex();
 
-                if (!edges.contains(edge)) {
+                if (seen.add(edge)) {
 
                     edges.add(edge);
 
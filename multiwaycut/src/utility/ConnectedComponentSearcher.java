@@ -1,5 +1,6 @@
 package utility;
 
+import datastructures.flownetwork.CompactGraph;
 import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
@@ -23,27 +24,28 @@ public class ConnectedComponentSearcher {
 
     public FlowNetwork getLargestConnectedComponent(FlowNetwork flowNetwork) {
 
-        Map<Integer, FlowVertex> vertices = flowNetwork.getVertices();
-        BreadthFirstSearch bfs = new BreadthFirstSearch(vertices, new DefaultReachability());
-        Map<Integer, Boolean> marked = bfs.getMarked();
+        CompactGraph graph = flowNetwork.freeze();
+        int[] component = graph.connectedComponents();
+        int[] componentSize = new int[graph.getNumVertices() + 1];
         LinkedList<FlowEdge> largest = new LinkedList<>();
 
         int largestComponent = 0;
+        int largestSize = 0;
 
-        for (Map.Entry<Integer, FlowVertex> entry : vertices.entrySet()) {
-
-            if (!marked.get(entry.getValue().id()).booleanValue()) {
+        // Count the vertices in each component
+        for (int v = 0; v < graph.getNumVertices(); v++) {
 
-                bfs.search(entry.getValue().id(), false);
+            componentSize[component[v]]++;
 
-                if (bfs.getNodeCount() > largestComponent) {
+        } //end for
 
-                    largestComponent = bfs.getNodeCount();
-                    largest = bfs.getEdges();
+        // Components are numbered in discovery order, so ties keep the first one found
+        for (int c = 0; c < componentSize.length; c++) {
 
-                } //end if
+            if (componentSize[c] > largestSize) {
 
-                //StdOut.println("Largest: " + largestComponent + ", Current: " +  bfs.getNodeCount());
+                largestSize = componentSize[c];
+                largestComponent = c;
 
             } //end if
 
@@ -51,7 +53,7 @@ public class ConnectedComponentSearcher {
 
         StdOut.println("Vertices: " + flowNetwork.getNumVertices() + ", Edges: " + flowNetwork.getNumEdges() + ", K: " + flowNetwork.getK());
 
-        if (largestComponent == flowNetwork.getNumVertices()) {
+        if (largestSize == flowNetwork.getNumVertices()) {
 
             return flowNetwork;
 
@@ -59,6 +61,17 @@ public class ConnectedComponentSearcher {
 
         else {
 
+            // Keep the edges whose endpoints are in the largest component
+            for (int e = 0; e < graph.getNumEdges(); e++) {
+
+                if (component[graph.edgeTail(e)] == largestComponent) {
+
+                    largest.add(graph.getEdge(e));
+
+                } //end if
+
+            } //end for
+
             return new FlowNetwork(largest, flowNetwork.getTerminals(), flowNetwork.getK());
 
         } //end else
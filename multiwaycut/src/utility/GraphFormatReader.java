@@ -3,6 +3,7 @@ package utility;
 import datastructures.flownetwork.FlowEdge;
 import datastructures.flownetwork.FlowNetwork;
 import datastructures.flownetwork.FlowVertex;
+import datastructures.flownetwork.MappedGraph;
 import library.In;
 import library.Out;
 import library.StdOut;
@@ -13,6 +14,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.Map;
@@ -111,13 +113,48 @@ public class GraphFormatReader {
 
     } //end parse
 
+    /**
+     * Streams a graph file into a mapped graph without building it on the heap. Only the
+     * formats that store their capacities can be streamed, since the edges are read twice.
+     * @param filename the graph file to read
+     * @param file the mapped graph file to write
+     * @return the mapped graph
+     */
+    public MappedGraph parseMapped(String filename, Path file) throws IOException {
+
+        In format = new In(filename);
+
+        String text = format.readLine();
+
+        format.close();
+
+        switch (text) {
+
+            case DIMACS2:
+
+                return streamDIMACS(filename, false, file);
+
+            case DIMACS3:
+
+                return streamDIMACS(filename, true, file);
+
+            case OTHER:
+
+                return streamOther(filename, file);
+
+            default:
+
+                throw new IllegalArgumentException("Unrecognized graph format for a mapped graph");
+
+        } //end switch
+
+    } //end parseMapped
+
     private FlowNetwork parseDIMACS(String filename, boolean edgeWeights, boolean genTerminals, String outName) {
 
         In in = new In(filename);
         FlowNetwork flowNetwork = new FlowNetwork();
 
-        int numVertices = -1;
-
         in.readLine();
         flowNetwork.setK(in.readInt());
 
@@ -129,6 +166,83 @@ public class GraphFormatReader {
 
         in.readLine();
 
+        int numVertices = readProblemLine(in, filename);
+
+        if (genTerminals) {
+
+            flowNetwork.setTerminals(generateTerminals(flowNetwork.getK(), 1, numVertices));
+
+        } //end if
+
+        readDIMACSEdges(in, edgeWeights, flowNetwork.getTerminals(), (u, v, capacity) -> {
+
+            flowNetwork.addVertex(u);
+            flowNetwork.addVertex(v);
+            flowNetwork.addEdge(u, v, capacity);
+
+        });
+
+        in.close();
+
+        if (!edgeWeights) {
+
+            outputGraph(flowNetwork, filename, outName);
+
+        } //end if
+
+        return flowNetwork;
+
+    } //end parseDIMACS
+
+    /**
+     * Streams a DIMACS graph with stored capacities into a mapped graph.
+     * @param filename the graph file to read
+     * @param genTerminals whether the terminals are generated rather than read
+     * @param file the mapped graph file to write
+     * @return the mapped graph
+     */
+    private MappedGraph streamDIMACS(String filename, boolean genTerminals, Path file) throws IOException {
+
+        In in = new In(filename);
+        LinkedList<Integer> terminals;
+
+        in.readLine();
+        int k = in.readInt();
+
+        if (genTerminals) {
+
+            terminals = generateTerminals(k, 1, readProblemLine(in, filename));
+
+        } //end if
+
+        else {
+
+            terminals = readTerminals(in, k);
+
+        } //end else
+
+        in.close();
+
+        return MappedGraph.stream(visitor -> {
+
+            In edges = new In(filename);
+
+            readProblemLine(edges, filename);
+            readDIMACSEdges(edges, true, terminals, visitor);
+            edges.close();
+
+        }, terminals, file);
+
+    } //end streamDIMACS
+
+    /**
+     * Reads up to and including the problem line of a DIMACS graph.
+     * @param in the graph file
+     * @param filename the name of the graph file
+     * @return the number of vertices on the problem line
+     */
+    private int readProblemLine(In in, String filename) {
+
         final Pattern p = Pattern.compile("p\\s+edge\\s+(\\d+)\\s+(\\d+)\\s*");
         final Matcher mp = p.matcher("");
 
@@ -138,24 +252,26 @@ public class GraphFormatReader {
 
             if (mp.matches()) {
 
-                numVertices = Integer.parseInt(mp.group(1));
-                break;
+                return Integer.parseInt(mp.group(1));
 
             } //end if
 
         } //end for
 
-        if (numVertices < 0) {
-
-            throw new IllegalArgumentException("Bad header line: " + filename);
-
-        } //end if
+        throw new IllegalArgumentException("Bad header line: " + filename);
 
-        if (genTerminals) {
-
-            flowNetwork.setTerminals(generateTerminals(flowNetwork.getK(), 1, numVertices));
+    } //end readProblemLine
 
-        } //end if
+    /**
+     * Reads the edge lines of a DIMACS graph. Without stored capacities, each edge is
+     * given a random capacity, higher for the edges at a terminal.
+     * @param in the graph file, after the problem line
+     * @param edgeWeights whether the capacities are stored
+     * @param terminals the terminals of the graph
+     * @param visitor receives each edge
+     */
+    private void readDIMACSEdges(In in, boolean edgeWeights, LinkedList<Integer> terminals,
+                                 MappedGraph.EdgeVisitor visitor) {
 
         final Pattern e;
 
@@ -182,27 +298,24 @@ public class GraphFormatReader {
                 int u = Integer.parseInt(me.group(1));
                 int v = Integer.parseInt(me.group(2));
 
-                flowNetwork.addVertex(u);
-                flowNetwork.addVertex(v);
-
                 if (edgeWeights) {
 
-                    flowNetwork.addEdge(u, v, Double.parseDouble(me.group(3)));
+                    visitor.edge(u, v, Double.parseDouble(me.group(3)));
 
                 } //end if
 
                 else {
 
-                    if (flowNetwork.getTerminals().contains(u) | flowNetwork.getTerminals().contains(v)) {
+                    if (terminals.contains(u) | terminals.contains(v)) {
 
-                        flowNetwork.addEdge(u, v, StdRandom.uniform(3, 6));
+                        visitor.edge(u, v, StdRandom.uniform(3, 6));
                         //flowNetwork.addEdge(u, v, 1);
 
                     } //end if
 
                     else {
 
-                        flowNetwork.addEdge(u, v, StdRandom.uniform(1, 3));
+                        visitor.edge(u, v, StdRandom.uniform(1, 3));
                         //flowNetwork.addEdge(u, v, 1);
 
                     } //end else
@@ -213,17 +326,7 @@ public class GraphFormatReader {
 
         } //end for
 
-        in.close();
-
-        if (!edgeWeights) {
-
-            outputGraph(flowNetwork, filename, outName);
-
-        } //end if
-
-        return flowNetwork;
-
-    } //end parseDIMACS
+    } //end readDIMACSEdges
 
    private FlowNetwork parseOther(String filename) {
 
@@ -246,17 +349,13 @@ public class GraphFormatReader {
 
         } //end if
 
-        // Read each edge from the input
-        for (int i = 0; i < numEdges; i++) {
-
-            int u = in.readInt();
-            int v = in.readInt();
+        readOtherEdges(in, numEdges, (u, v, capacity) -> {
 
             flowNetwork.addVertex(u);
             flowNetwork.addVertex(v);
-            flowNetwork.addEdge(u, v, in.readInt());
+            flowNetwork.addEdge(u, v, capacity);
 
-        } //end for
+        });
 
         in.close();
 
@@ -264,6 +363,60 @@ public class GraphFormatReader {
 
     } //end parseOther
 
+    /**
+     * Streams an OTHER graph into a mapped graph.
+     * @param filename the graph file to read
+     * @param file the mapped graph file to write
+     * @return the mapped graph
+     */
+    private MappedGraph streamOther(String filename, Path file) throws IOException {
+
+        In in = new In(filename);
+
+        in.readLine();
+        LinkedList<Integer> terminals = readTerminals(in, in.readInt());
+        in.close();
+
+        return MappedGraph.stream(visitor -> {
+
+            In edges = new In(filename);
+
+            edges.readLine();
+            readTerminals(edges, edges.readInt());
+            edges.readInt();
+            readOtherEdges(edges, edges.readInt(), visitor);
+            edges.close();
+
+        }, terminals, file);
+
+    } //end streamOther
+
+    /**
+     * Reads the edges of an OTHER graph.
+     * @param in the graph file, after the number of edges
+     * @param numEdges the number of edges
+     * @param visitor receives each edge
+     */
+    private void readOtherEdges(In in, int numEdges, MappedGraph.EdgeVisitor visitor) {
+
+        if (numEdges < 0) {
+
+            throw new IllegalArgumentException("Choose a nonnegative number of vertices and edges");
+
+        } //end if
+
+        // Read each edge from the input
+        for (int i = 0; i < numEdges; i++) {
+
+            int u = in.readInt();
+            int v = in.readInt();
+
+            visitor.edge(u, v, in.readInt());
+
+        } //end for
+
+    } //end readOtherEdges
+
     private FlowNetwork parseConcentric(String filename, String outName) {
 
         In in = new In(filename);
@@ -12,7 +12,18 @@ public class MinCutReachability implements Reachability {
 
     public boolean isReachable(FlowEdge edge, FlowVertex start, FlowVertex end, Map<Integer, Boolean> marked) {
 
-        return (edge.getCapacity() - edge.getFlow() > 0 && !marked.get(end.id())) || (edge.getCapacity() - edge.getFlow() == 0 && !marked.get(end.id()) && edge.getCapacity() > 0 && edge.getFrom() != start.id());
+        // The flow is signed, so the residual capacity depends on the direction of travel
+        if (start == edge.getStartVertex()) {
+
+            return edge.getCapacity() - edge.getFlow() > 0 && !marked.get(end.id());
+
+        } //end if
+
+        else {
+
+            return edge.getCapacity() + edge.getFlow() > 0 && !marked.get(end.id());
+
+        } //end else
 
     } //end isReachable
 